@@ -0,0 +1,80 @@
+package com.globalbooks.catalog.benchmark;
+
+import com.globalbooks.catalog.search.AutocompleteIndex;
+import com.globalbooks.catalog.search.AutocompleteIndex.Entry;
+import com.globalbooks.catalog.search.AutocompleteIndex.Field;
+import org.openjdk.jmh.annotations.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prefix lookups and single-product updates against a synthetic catalog of random
+ * multi-word titles and authors. Sampled so the tail latency is visible, not just the mean.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+@State(Scope.Benchmark)
+public class AutocompleteIndexBenchmark {
+
+    private static final int QUERIES = 1024;
+
+    @Param({"100000", "1000000"})
+    private int products;
+
+    private AutocompleteIndex index;
+    private String[] queries;
+    private Random random;
+
+    @Setup
+    public void setUp() {
+        random = new Random(42);
+        index = new AutocompleteIndex(10);
+        List<Entry[]> catalog = new ArrayList<>(products);
+        for (int i = 0; i < products; i++) {
+            catalog.add(entries(i, random.nextInt(12)));
+        }
+        index.rebuild(catalog);
+
+        queries = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            queries[i] = word(1 + random.nextInt(3));
+        }
+    }
+
+    @Benchmark
+    public List<Entry> lookup() {
+        return index.lookup(queries[random.nextInt(QUERIES)], 10);
+    }
+
+    @Benchmark
+    public void update() {
+        int product = random.nextInt(products);
+        index.update("BOOK-" + product, entries(product, random.nextInt(12)));
+    }
+
+    private Entry[] entries(int product, int score) {
+        String productId = "BOOK-" + product;
+        StringBuilder title = new StringBuilder(word(3 + random.nextInt(6)));
+        for (int words = random.nextInt(5); words > 0; words--) {
+            title.append(' ').append(word(2 + random.nextInt(8)));
+        }
+        return new Entry[] {
+            new Entry(productId, title.toString(), Field.TITLE, score),
+            new Entry(productId, word(4 + random.nextInt(6)) + " " + word(5 + random.nextInt(6)), Field.AUTHOR, score),
+            new Entry(productId, String.format("978-%010d", product), Field.ISBN, score)
+        };
+    }
+
+    private String word(int length) {
+        char[] letters = new char[length];
+        for (int i = 0; i < length; i++) {
+            letters[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(letters);
+    }
+}
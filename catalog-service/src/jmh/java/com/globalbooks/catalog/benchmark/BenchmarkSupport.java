@@ -0,0 +1,15 @@
+package com.globalbooks.catalog.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.slf4j.LoggerFactory;
+
+final class BenchmarkSupport {
+
+    private BenchmarkSupport() {}
+
+    // The service logs every request at INFO; console output would dominate the measurements
+    static void quietLogging() {
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+    }
+}
@@ -0,0 +1,59 @@
+package com.globalbooks.catalog.benchmark;
+
+import com.globalbooks.catalog.model.Product;
+import com.globalbooks.catalog.model.ProductBatchResult;
+import org.openjdk.jmh.annotations.*;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Marshaller;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Marshalling a list of products the way a getProductsByIds response carries them,
+ * written to a discarding stream so only the JAXB work is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class JaxbMarshallingBenchmark {
+
+    @Param({"10", "100"})
+    private int products;
+
+    private Marshaller marshaller;
+    private ProductBatchResult batch;
+
+    @Setup
+    public void setUp() throws Exception {
+        marshaller = JAXBContext.newInstance(ProductBatchResult.class).createMarshaller();
+        List<Product> list = new ArrayList<>();
+        for (int i = 0; i < products; i++) {
+            Product product = new Product();
+            product.setProductId(String.format("BOOK-%05d", i));
+            product.setTitle("Title " + i);
+            product.setAuthor("Author " + i);
+            product.setIsbn(String.format("978-%010d", i));
+            product.setDescription("A description of book " + i + " long enough to resemble catalog copy.");
+            product.setCategory("Programming");
+            product.setPrice(BigDecimal.valueOf(4599, 2));
+            product.setCurrency("USD");
+            product.setStockQuantity(100 + i);
+            product.setPublishDate(new Date(1577836800000L));
+            product.setImageUrl("https://images.globalbooks.com/BOOK-" + i + ".jpg");
+            list.add(product);
+        }
+        batch = new ProductBatchResult(list, new ArrayList<>());
+    }
+
+    @Benchmark
+    public void marshalProducts() throws Exception {
+        marshaller.marshal(batch, OutputStream.nullOutputStream());
+    }
+}
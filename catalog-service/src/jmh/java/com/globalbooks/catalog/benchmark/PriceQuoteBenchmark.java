@@ -0,0 +1,48 @@
+package com.globalbooks.catalog.benchmark;
+
+import com.globalbooks.catalog.model.CartQuote;
+import com.globalbooks.catalog.model.PriceQuote;
+import org.openjdk.jmh.annotations.*;
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Quote arithmetic on its own: one quote per discount tier, and a 50-line cart.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PriceQuoteBenchmark {
+
+    private static final int CART_LINES = 50;
+
+    @Param({"1", "10", "50", "100"})
+    private int quantity;
+
+    private BigDecimal unitPrice;
+    private Date validUntil;
+
+    @Setup
+    public void setUp() {
+        unitPrice = new BigDecimal("45.99");
+        validUntil = new Date(System.currentTimeMillis() + PriceQuote.VALIDITY_MILLIS);
+    }
+
+    @Benchmark
+    public PriceQuote quote() {
+        return new PriceQuote("BOOK-001", unitPrice, quantity);
+    }
+
+    @Benchmark
+    public CartQuote cart() {
+        CartQuote cart = new CartQuote("USD", validUntil);
+        for (int i = 0; i < CART_LINES; i++) {
+            cart.addLine(new PriceQuote("BOOK-001", unitPrice, quantity, validUntil));
+        }
+        return cart;
+    }
+}
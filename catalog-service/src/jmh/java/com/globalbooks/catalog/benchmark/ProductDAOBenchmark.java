@@ -0,0 +1,109 @@
+package com.globalbooks.catalog.benchmark;
+
+import com.globalbooks.catalog.dao.ProductDAO;
+import com.globalbooks.catalog.dao.ProductDAOImpl;
+import com.globalbooks.catalog.model.Product;
+import com.globalbooks.catalog.util.DatabaseConnection;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ProductDAOImpl reads against an in-memory H2 database in PostgreSQL mode, so the numbers
+ * reflect statement handling and mapResultSetToProduct rather than network round trips.
+ * Only run the DAO's portable queries here; full-text search needs a real PostgreSQL.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductDAOBenchmark {
+
+    private static final int PRODUCTS = 1000;
+
+    @Param({"50"})
+    private int batchSize;
+
+    private ProductDAO productDAO;
+    private List<String> batchIds;
+
+    @Setup
+    public void setUp() throws SQLException {
+        BenchmarkSupport.quietLogging();
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS products");
+            stmt.execute("CREATE TABLE products (" +
+                    "product_id VARCHAR(50) PRIMARY KEY, title VARCHAR(255) NOT NULL, " +
+                    "author VARCHAR(255) NOT NULL, isbn VARCHAR(20) UNIQUE NOT NULL, description TEXT, " +
+                    "category VARCHAR(100) NOT NULL, price DECIMAL(10, 2) NOT NULL, " +
+                    "currency VARCHAR(3) DEFAULT 'USD', stock_quantity INTEGER NOT NULL DEFAULT 0, " +
+                    "reserved_quantity INTEGER NOT NULL DEFAULT 0, warehouse_location VARCHAR(100), " +
+                    "publish_date DATE, image_url VARCHAR(500), restock_date DATE)");
+            try (PreparedStatement insert = conn.prepareStatement("INSERT INTO products " +
+                    "(product_id, title, author, isbn, description, category, price, stock_quantity, " +
+                    "publish_date, image_url) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+                for (int i = 0; i < PRODUCTS; i++) {
+                    insert.setString(1, productId(i));
+                    insert.setString(2, "Title " + i);
+                    insert.setString(3, "Author " + (i % 97));
+                    insert.setString(4, String.format("978-%010d", i));
+                    insert.setString(5, "A description of book " + i + " long enough to resemble catalog copy.");
+                    insert.setString(6, "Category " + (i % 12));
+                    insert.setBigDecimal(7, BigDecimal.valueOf(1000 + i, 2));
+                    insert.setInt(8, 100 + i);
+                    insert.setDate(9, Date.valueOf("2020-01-01"));
+                    insert.setString(10, "https://images.globalbooks.com/" + productId(i) + ".jpg");
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        }
+
+        productDAO = new ProductDAOImpl();
+        batchIds = new ArrayList<>();
+        for (int i = 0; i < batchSize; i++) {
+            batchIds.add(productId(i * (PRODUCTS / batchSize)));
+        }
+
+        // The DAO logs and swallows SQL errors; make sure the queries really return rows here
+        if (productDAO.findByIds(batchIds).size() != batchSize
+                || productDAO.streamAll(product -> {}) != PRODUCTS) {
+            throw new IllegalStateException("Benchmark queries did not return the seeded products");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        DatabaseConnection.closeDataSource();
+    }
+
+    @Benchmark
+    public Product findById() {
+        return productDAO.findById(productId(PRODUCTS / 2));
+    }
+
+    @Benchmark
+    public List<Product> findByIds() {
+        return productDAO.findByIds(batchIds);
+    }
+
+    @Benchmark
+    public long streamAll(Blackhole blackhole) {
+        return productDAO.streamAll(blackhole::consume);
+    }
+
+    private static String productId(int i) {
+        return String.format("BOOK-%05d", i);
+    }
+}
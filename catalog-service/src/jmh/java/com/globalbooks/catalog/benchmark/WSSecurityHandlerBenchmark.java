@@ -0,0 +1,90 @@
+package com.globalbooks.catalog.benchmark;
+
+import com.globalbooks.catalog.security.WSSecurityHandler;
+import com.sun.xml.ws.api.BindingID;
+import com.sun.xml.ws.api.WSBinding;
+import com.sun.xml.ws.api.message.Messages;
+import com.sun.xml.ws.api.message.Packet;
+import com.sun.xml.ws.handler.SOAPMessageContextImpl;
+import org.openjdk.jmh.annotations.*;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import javax.xml.soap.SOAPHeader;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.ws.handler.MessageContext;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of authenticating an inbound getProductById request.
+ * Both benchmarks build the runtime message from the same bytes; "domHeader" then reads the
+ * credentials the way the handler used to (SAAJ conversion plus getElementsByTagNameNS), while
+ * "streamingHeader" runs the current handler. Compare gc.alloc.rate.norm between the two.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class WSSecurityHandlerBenchmark {
+
+    private static final String WSSE_NS =
+            "http://docs.oasis-open.org/wss/2004/01/oasis-200401-wss-wssecurity-secext-1.0.xsd";
+
+    private static final String REQUEST =
+            "<soapenv:Envelope xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\"" +
+            " xmlns:v1=\"http://globalbooks.com/services/catalog/v1\">" +
+            "<soapenv:Header>" +
+            "<wsse:Security xmlns:wsse=\"" + WSSE_NS + "\">" +
+            "<wsse:UsernameToken>" +
+            "<wsse:Username>client1</wsse:Username>" +
+            "<wsse:Password Type=\"http://docs.oasis-open.org/wss/2004/01/" +
+            "oasis-200401-wss-username-token-profile-1.0#PasswordText\">pass123</wsse:Password>" +
+            "</wsse:UsernameToken>" +
+            "</wsse:Security>" +
+            "</soapenv:Header>" +
+            "<soapenv:Body><v1:getProductById><productId>BOOK-001</productId></v1:getProductById></soapenv:Body>" +
+            "</soapenv:Envelope>";
+
+    private byte[] request;
+    private XMLInputFactory inputFactory;
+    private WSBinding binding;
+    private WSSecurityHandler handler;
+
+    @Setup
+    public void setUp() {
+        BenchmarkSupport.quietLogging();
+        request = REQUEST.getBytes(StandardCharsets.UTF_8);
+        inputFactory = XMLInputFactory.newInstance();
+        binding = ((BindingID) BindingID.SOAP11_HTTP).createBinding();
+        handler = new WSSecurityHandler();
+    }
+
+    @Benchmark
+    public boolean streamingHeader() throws Exception {
+        return handler.handleMessage(newInboundContext());
+    }
+
+    @Benchmark
+    public String domHeader() throws Exception {
+        SOAPMessageContextImpl context = newInboundContext();
+        SOAPHeader header = context.getMessage().getSOAPHeader();
+        Element security = (Element) header.getElementsByTagNameNS(WSSE_NS, "Security").item(0);
+        Element token = (Element) security.getElementsByTagNameNS(WSSE_NS, "UsernameToken").item(0);
+        NodeList usernames = token.getElementsByTagNameNS(WSSE_NS, "Username");
+        NodeList passwords = token.getElementsByTagNameNS(WSSE_NS, "Password");
+        return usernames.item(0).getTextContent() + passwords.item(0).getTextContent()
+                + ((Element) passwords.item(0)).getAttribute("Type");
+    }
+
+    private SOAPMessageContextImpl newInboundContext() throws Exception {
+        Packet packet = new Packet(Messages.create(
+                inputFactory.createXMLStreamReader(new ByteArrayInputStream(request))));
+        SOAPMessageContextImpl context = new SOAPMessageContextImpl(binding, packet, Collections.emptySet());
+        context.put(MessageContext.MESSAGE_OUTBOUND_PROPERTY, Boolean.FALSE);
+        return context;
+    }
+}
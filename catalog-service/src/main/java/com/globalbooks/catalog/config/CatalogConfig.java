@@ -0,0 +1,74 @@
+package com.globalbooks.catalog.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+public class CatalogConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogConfig.class);
+    private static final Properties PROPERTIES = loadProperties();
+
+    private CatalogConfig() {}
+
+    private static Properties loadProperties() {
+        Properties props = new Properties();
+        try (InputStream input = CatalogConfig.class.getClassLoader()
+                .getResourceAsStream("catalog.properties")) {
+            if (input != null) {
+                props.load(input);
+            }
+        } catch (IOException e) {
+            logger.warn("Unable to read catalog.properties, using defaults", e);
+        }
+        return props;
+    }
+
+    /**
+     * Resolves a setting from system properties, then the environment
+     * (e.g. catalog.cache.size -> CATALOG_CACHE_SIZE), then catalog.properties.
+     */
+    public static String getString(String key, String defaultValue) {
+        String value = System.getProperty(key);
+        if (value == null) {
+            value = System.getenv(key.toUpperCase().replace('.', '_').replace('-', '_'));
+        }
+        if (value == null) {
+            value = PROPERTIES.getProperty(key);
+        }
+        return value != null && !value.trim().isEmpty() ? value.trim() : defaultValue;
+    }
+
+    public static int getInt(String key, int defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid integer value '{}' for {}, using {}", value, key, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    public static long getLong(String key, long defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid long value '{}' for {}, using {}", value, key, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        String value = getString(key, null);
+        return value != null ? Boolean.parseBoolean(value) : defaultValue;
+    }
+}
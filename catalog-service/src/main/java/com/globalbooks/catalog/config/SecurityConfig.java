@@ -1,5 +1,7 @@
 package com.globalbooks.catalog.config;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -54,6 +56,10 @@ public class SecurityConfig {
         return USERS.containsKey(username);
     }
 
+    public static Collection<UserInfo> getUsers() {
+        return Collections.unmodifiableCollection(USERS.values());
+    }
+
     public static class UserInfo {
         private final String username;
         private final String password;
@@ -0,0 +1,204 @@
+package com.globalbooks.catalog.dao;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.globalbooks.catalog.config.CatalogConfig;
+import com.globalbooks.catalog.model.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * Read-through product cache in front of another ProductDAO.
+ * Caffeine's W-TinyLFU policy keeps the hot SKUs resident while one-off
+ * lookups are evicted first; every write through this DAO evicts the product
+ * and is published to the ProductChangeNotifier for caches further up.
+ *
+ * Entries also expire after catalog.cache.product.expire-after-write-ms (default ten
+ * minutes), which bounds how long a change that was never reported can be served.
+ */
+public class CachingProductDAO implements ProductDAO {
+
+    private static final Logger logger = LoggerFactory.getLogger(CachingProductDAO.class);
+    private static final int INVALIDATION_STRIPES = 1024;
+
+    private final ProductDAO delegate;
+    private final Cache<String, Product> productCache;
+    private final ProductChangeNotifier changeNotifier;
+    // Bumped before each eviction, so a bulk load can tell its rows may predate one
+    private final AtomicLongArray invalidations = new AtomicLongArray(INVALIDATION_STRIPES);
+
+    public CachingProductDAO(ProductDAO delegate, long maximumSize) {
+        this(delegate, maximumSize, new ProductChangeNotifier());
+    }
+
+    public CachingProductDAO(ProductDAO delegate, long maximumSize, ProductChangeNotifier changeNotifier) {
+        this.delegate = delegate;
+        this.changeNotifier = changeNotifier;
+        this.productCache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(CatalogConfig.getLong("catalog.cache.product.expire-after-write-ms", 600000),
+                        TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+        logger.info("Product cache initialized with maximum size {}", maximumSize);
+    }
+
+    @Override
+    public Product findById(String productId) {
+        // Misses are not cached, so unknown IDs always go to the delegate
+        return productCache.get(productId, delegate::findById);
+    }
+
+    @Override
+    public List<Product> findByIds(List<String> productIds) {
+        // Cached products are served directly; the rest are loaded in a single delegate query
+        Map<String, Product> found = new LinkedHashMap<>(productCache.getAllPresent(productIds));
+        List<String> missing = new ArrayList<>(new LinkedHashSet<>(productIds));
+        missing.removeAll(found.keySet());
+        if (missing.isEmpty()) {
+            return new ArrayList<>(found.values());
+        }
+
+        Map<String, Long> stamps = new LinkedHashMap<>();
+        for (String productId : missing) {
+            stamps.put(productId, invalidations.get(stripe(productId)));
+        }
+        for (Product product : delegate.findByIds(missing)) {
+            found.put(product.getProductId(), product);
+            Long stamp = stamps.get(product.getProductId());
+            if (stamp != null) {
+                cacheUnlessInvalidated(product.getProductId(), product, stamp);
+            }
+        }
+        return new ArrayList<>(found.values());
+    }
+
+    // Caffeine's getAll would put loaded rows even if a write evicted them mid-query;
+    // checking again after the put retracts a row whose eviction raced with it
+    private void cacheUnlessInvalidated(String productId, Product product, long stamp) {
+        int stripe = stripe(productId);
+        if (invalidations.get(stripe) != stamp) {
+            return;
+        }
+        productCache.asMap().putIfAbsent(productId, product);
+        if (invalidations.get(stripe) != stamp) {
+            productCache.asMap().remove(productId, product);
+        }
+    }
+
+    private static int stripe(String productId) {
+        return (productId.hashCode() & Integer.MAX_VALUE) % INVALIDATION_STRIPES;
+    }
+
+    @Override
+    public List<Product> search(SearchCriteria criteria) {
+        return delegate.search(criteria);
+    }
+
+    @Override
+    public ProductPage searchPage(SearchCriteria criteria) {
+        return delegate.searchPage(criteria);
+    }
+
+    @Override
+    public List<String> findIdsMatchingText(SearchCriteria criteria) {
+        return delegate.findIdsMatchingText(criteria);
+    }
+
+    @Override
+    public long streamAll(Consumer<Product> consumer) {
+        return delegate.streamAll(consumer);
+    }
+
+    @Override
+    public InventoryStatus getInventoryStatus(String productId) {
+        return delegate.getInventoryStatus(productId);
+    }
+
+    @Override
+    public boolean updateInventory(String productId, int quantity, String operation) {
+        try {
+            return delegate.updateInventory(productId, quantity, operation);
+        } finally {
+            invalidate(productId);
+        }
+    }
+
+    @Override
+    public BulkInventoryUpdateResult bulkUpdateInventory(List<InventoryUpdate> updates) {
+        try {
+            return delegate.bulkUpdateInventory(updates);
+        } finally {
+            for (InventoryUpdate update : updates) {
+                invalidate(update.getProductId());
+            }
+        }
+    }
+
+    @Override
+    public boolean save(Product product) {
+        try {
+            return delegate.save(product);
+        } finally {
+            invalidate(product.getProductId());
+        }
+    }
+
+    @Override
+    public boolean update(Product product) {
+        try {
+            return delegate.update(product);
+        } finally {
+            invalidate(product.getProductId());
+        }
+    }
+
+    @Override
+    public boolean delete(String productId) {
+        try {
+            return delegate.delete(productId);
+        } finally {
+            invalidate(productId);
+        }
+    }
+
+    public void invalidate(String productId) {
+        if (productId != null) {
+            invalidations.incrementAndGet(stripe(productId));
+            productCache.invalidate(productId);
+            changeNotifier.productChanged(productId);
+        }
+    }
+
+    public void invalidateAll() {
+        for (int i = 0; i < INVALIDATION_STRIPES; i++) {
+            invalidations.incrementAndGet(i);
+        }
+        productCache.invalidateAll();
+        changeNotifier.allProductsChanged();
+    }
+
+    public ProductChangeNotifier getChangeNotifier() {
+        return changeNotifier;
+    }
+
+    /**
+     * Hit, miss and eviction counters since startup, for sizing the cache.
+     */
+    public CacheStats getStats() {
+        return productCache.stats();
+    }
+
+    public long getEstimatedSize() {
+        return productCache.estimatedSize();
+    }
+}
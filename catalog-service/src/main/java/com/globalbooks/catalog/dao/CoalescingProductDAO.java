@@ -0,0 +1,160 @@
+package com.globalbooks.catalog.dao;
+
+import com.globalbooks.catalog.model.*;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Lets concurrent inventory reads of the same product share one delegate query: the first
+ * caller of getInventoryStatus for a product runs it, and callers arriving while it is in
+ * flight wait for its result instead of taking another connection.
+ *
+ * findById is passed straight through: CachingProductDAO loads a missing product with
+ * Caffeine's get(id, loader), which already runs a single load per key for concurrent callers.
+ *
+ * Waiters share the returned object, so callers must not modify it. A product reported
+ * changed through ProductChangeNotifier is dropped from the in-flight set, so a read that
+ * starts after a write never joins a query that started before it.
+ */
+public class CoalescingProductDAO implements ProductDAO, ProductChangeListener {
+
+    private final ProductDAO delegate;
+    private final ConcurrentMap<String, CompletableFuture<InventoryStatus>> inventoryReads = new ConcurrentHashMap<>();
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    public CoalescingProductDAO(ProductDAO delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Product findById(String productId) {
+        return delegate.findById(productId);
+    }
+
+    @Override
+    public List<Product> findByIds(List<String> productIds) {
+        return delegate.findByIds(productIds);
+    }
+
+    @Override
+    public List<Product> search(SearchCriteria criteria) {
+        return delegate.search(criteria);
+    }
+
+    @Override
+    public ProductPage searchPage(SearchCriteria criteria) {
+        return delegate.searchPage(criteria);
+    }
+
+    @Override
+    public List<String> findIdsMatchingText(SearchCriteria criteria) {
+        return delegate.findIdsMatchingText(criteria);
+    }
+
+    @Override
+    public long streamAll(Consumer<Product> consumer) {
+        return delegate.streamAll(consumer);
+    }
+
+    @Override
+    public InventoryStatus getInventoryStatus(String productId) {
+        return coalesce(inventoryReads, productId, delegate::getInventoryStatus);
+    }
+
+    @Override
+    public boolean updateInventory(String productId, int quantity, String operation) {
+        return delegate.updateInventory(productId, quantity, operation);
+    }
+
+    @Override
+    public BulkInventoryUpdateResult bulkUpdateInventory(List<InventoryUpdate> updates) {
+        return delegate.bulkUpdateInventory(updates);
+    }
+
+    @Override
+    public boolean save(Product product) {
+        return delegate.save(product);
+    }
+
+    @Override
+    public boolean update(Product product) {
+        return delegate.update(product);
+    }
+
+    @Override
+    public boolean delete(String productId) {
+        return delegate.delete(productId);
+    }
+
+    // Waiters already attached still get the in-flight result; later callers query afresh
+    @Override
+    public void productChanged(String productId) {
+        inventoryReads.remove(productId);
+    }
+
+    @Override
+    public void allProductsChanged() {
+        inventoryReads.clear();
+    }
+
+    /**
+     * Inventory reads that ran a delegate query since startup.
+     */
+    public long getExecutedReads() {
+        return executed.sum();
+    }
+
+    /**
+     * Inventory reads answered by another caller's in-flight query since startup.
+     */
+    public long getCoalescedReads() {
+        return coalesced.sum();
+    }
+
+    public int getInFlightReads() {
+        return inventoryReads.size();
+    }
+
+    private <T> T coalesce(ConcurrentMap<String, CompletableFuture<T>> inFlight, String productId,
+                           Function<String, T> read) {
+        if (productId == null) {
+            return read.apply(null);
+        }
+        CompletableFuture<T> own = new CompletableFuture<>();
+        CompletableFuture<T> running = inFlight.putIfAbsent(productId, own);
+        if (running != null) {
+            coalesced.increment();
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                // Waiters see the leader's failure as if their own query had failed
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw e;
+            }
+        }
+
+        executed.increment();
+        try {
+            T result = read.apply(productId);
+            own.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(productId, own);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.globalbooks.catalog.dao;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset position handed to clients between result pages.
+ * Encodes the sort key of the last row returned: search rank (keyword searches only),
+ * title and product ID, so the next page starts with a "WHERE (title, product_id) > (?, ?)"
+ * seek instead of an OFFSET scan.
+ */
+public final class ContinuationToken {
+
+    private static final String VERSION = "1";
+    // PostgreSQL text values cannot contain NUL, so it is a safe field separator
+    private static final String SEPARATOR = "\u0000";
+
+    private final Float rank;
+    private final String title;
+    private final String productId;
+
+    public ContinuationToken(Float rank, String title, String productId) {
+        this.rank = rank;
+        this.title = title;
+        this.productId = productId;
+    }
+
+    public Float getRank() { return rank; }
+
+    public String getTitle() { return title; }
+
+    public String getProductId() { return productId; }
+
+    public String encode() {
+        String raw = VERSION + SEPARATOR + (rank != null ? Float.toString(rank) : "") +
+                SEPARATOR + title + SEPARATOR + productId;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token was not produced by {@link #encode()}
+     */
+    public static ContinuationToken decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(SEPARATOR, -1);
+            if (parts.length != 4 || !VERSION.equals(parts[0])) {
+                throw new IllegalArgumentException("Malformed continuation token");
+            }
+            Float rank = parts[1].isEmpty() ? null : Float.valueOf(parts[1]);
+            return new ContinuationToken(rank, parts[2], parts[3]);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid continuation token", e);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.globalbooks.catalog.dao;
+
+import com.globalbooks.catalog.inventory.ReservationLedger;
+import com.globalbooks.catalog.model.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Routes inventory changes through the in-memory ReservationLedger instead of issuing
+ * row-locking UPDATEs, and overlays the ledger's counters on reads of loaded products
+ * so callers never see the database lagging behind an acknowledged reservation.
+ */
+public class LedgerProductDAO implements ProductDAO {
+
+    private static final Logger logger = LoggerFactory.getLogger(LedgerProductDAO.class);
+
+    private final ProductDAO delegate;
+    private final ReservationLedger ledger;
+
+    public LedgerProductDAO(ProductDAO delegate, ReservationLedger ledger) {
+        this.delegate = delegate;
+        this.ledger = ledger;
+    }
+
+    @Override
+    public Product findById(String productId) {
+        return overlay(delegate.findById(productId));
+    }
+
+    @Override
+    public List<Product> findByIds(List<String> productIds) {
+        List<Product> products = delegate.findByIds(productIds);
+        products.forEach(this::overlay);
+        return products;
+    }
+
+    @Override
+    public List<Product> search(SearchCriteria criteria) {
+        return delegate.search(criteria);
+    }
+
+    @Override
+    public ProductPage searchPage(SearchCriteria criteria) {
+        return delegate.searchPage(criteria);
+    }
+
+    @Override
+    public List<String> findIdsMatchingText(SearchCriteria criteria) {
+        return delegate.findIdsMatchingText(criteria);
+    }
+
+    @Override
+    public long streamAll(Consumer<Product> consumer) {
+        return delegate.streamAll(consumer);
+    }
+
+    @Override
+    public InventoryStatus getInventoryStatus(String productId) {
+        InventoryStatus status = delegate.getInventoryStatus(productId);
+        int[] counters = status != null ? ledger.getCounters(productId) : null;
+        if (counters != null) {
+            status.setReservedQuantity(counters[1]);
+            status.setAvailableQuantity(counters[0] - counters[1]);
+        }
+        return status;
+    }
+
+    @Override
+    public boolean updateInventory(String productId, int quantity, String operation) {
+        try {
+            return ledger.apply(Collections.singletonList(
+                    new InventoryUpdate(productId, quantity, operation)))[0];
+        } catch (IOException e) {
+            logger.error("Error journaling inventory update for product: {}", productId, e);
+            return false;
+        }
+    }
+
+    @Override
+    public BulkInventoryUpdateResult bulkUpdateInventory(List<InventoryUpdate> updates) {
+        boolean[] applicable;
+        try {
+            applicable = ledger.apply(updates);
+        } catch (IOException e) {
+            logger.error("Error journaling bulk inventory update of {} lines", updates.size(), e);
+            return null;
+        }
+
+        BulkInventoryUpdateResult result = new BulkInventoryUpdateResult();
+        boolean committed = true;
+        for (boolean line : applicable) {
+            committed &= line;
+        }
+        result.setCommitted(committed);
+        for (int i = 0; i < updates.size(); i++) {
+            if (committed) {
+                result.getResults().add(new InventoryUpdateResult(updates.get(i), true, "Applied"));
+            } else if (!applicable[i]) {
+                result.getResults().add(new InventoryUpdateResult(updates.get(i), false,
+                        "Insufficient stock or product not found"));
+            } else {
+                result.getResults().add(new InventoryUpdateResult(updates.get(i), false, "Rolled back"));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean save(Product product) {
+        return exclusive(product.getProductId(), () -> delegate.save(product));
+    }
+
+    @Override
+    public boolean update(Product product) {
+        return exclusive(product.getProductId(), () -> delegate.update(product));
+    }
+
+    @Override
+    public boolean delete(String productId) {
+        return exclusive(productId, () -> delegate.delete(productId));
+    }
+
+    public ReservationLedger getLedger() {
+        return ledger;
+    }
+
+    // Row writes overwrite stock_quantity, so pending deltas must reach the table first
+    private boolean exclusive(String productId, Supplier<Boolean> write) {
+        try {
+            return ledger.runExclusive(productId, write);
+        } catch (SQLException e) {
+            logger.error("Error flushing inventory ledger before writing product: {}", productId, e);
+            return false;
+        }
+    }
+
+    private Product overlay(Product product) {
+        if (product != null) {
+            int[] counters = ledger.getCounters(product.getProductId());
+            if (counters != null) {
+                product.setStockQuantity(counters[0]);
+            }
+        }
+        return product;
+    }
+}
@@ -0,0 +1,12 @@
+package com.globalbooks.catalog.dao;
+
+/**
+ * Receives product change events published through ProductChangeNotifier.
+ * Called on the writing thread, so implementations should only invalidate state.
+ */
+public interface ProductChangeListener {
+
+    void productChanged(String productId);
+
+    void allProductsChanged();
+}
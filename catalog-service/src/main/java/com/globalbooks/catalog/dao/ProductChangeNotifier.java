@@ -0,0 +1,54 @@
+package com.globalbooks.catalog.dao;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fans product invalidations out to caches that sit above the DAO layer. The
+ * generation counter lets a cache detect that a change happened while it was
+ * computing a value, so it can drop a result that may already be stale.
+ */
+public class ProductChangeNotifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductChangeNotifier.class);
+
+    private final List<ProductChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    public void addListener(ProductChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(ProductChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    public void productChanged(String productId) {
+        generation.incrementAndGet();
+        for (ProductChangeListener listener : listeners) {
+            try {
+                listener.productChanged(productId);
+            } catch (RuntimeException e) {
+                logger.error("Product change listener failed for product: {}", productId, e);
+            }
+        }
+    }
+
+    public void allProductsChanged() {
+        generation.incrementAndGet();
+        for (ProductChangeListener listener : listeners) {
+            try {
+                listener.allProductsChanged();
+            } catch (RuntimeException e) {
+                logger.error("Product change listener failed to invalidate all products", e);
+            }
+        }
+    }
+}
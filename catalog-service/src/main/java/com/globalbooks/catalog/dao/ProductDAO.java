@@ -2,13 +2,31 @@ package com.globalbooks.catalog.dao;
 
 import com.globalbooks.catalog.model.*;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface ProductDAO {
     Product findById(String productId);
-    List<Product> findAll();
+    List<Product> findByIds(List<String> productIds);
     List<Product> search(SearchCriteria criteria);
+    ProductPage searchPage(SearchCriteria criteria);
+    /**
+     * IDs of every product matching the criteria's keyword and author conditions, unpaged and
+     * in no particular order; the other criteria are applied by the caller.
+     * Returns null if the database could not be reached.
+     */
+    List<String> findIdsMatchingText(SearchCriteria criteria);
+    /**
+     * Pushes every product to the consumer in product_id order without buffering the table.
+     * Returns the number of products streamed, or -1 if the export failed part way.
+     */
+    long streamAll(Consumer<Product> consumer);
     InventoryStatus getInventoryStatus(String productId);
     boolean updateInventory(String productId, int quantity, String operation);
+    /**
+     * Applies all lines in one transaction, or none of them if any line cannot be applied.
+     * Returns null if the database could not be reached.
+     */
+    BulkInventoryUpdateResult bulkUpdateInventory(List<InventoryUpdate> updates);
     boolean save(Product product);
     boolean update(Product product);
     boolean delete(String productId);
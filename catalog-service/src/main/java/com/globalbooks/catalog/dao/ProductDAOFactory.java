@@ -0,0 +1,63 @@
+package com.globalbooks.catalog.dao;
+
+import com.globalbooks.catalog.config.CatalogConfig;
+import com.globalbooks.catalog.inventory.ReservationLedger;
+import java.nio.file.Paths;
+
+/**
+ * Holds the ProductDAO chain shared by every endpoint in the web application,
+ * so all callers see the same product cache.
+ */
+public class ProductDAOFactory {
+
+    private static final long DEFAULT_CACHE_SIZE = 10000;
+
+    private static final ReservationLedger ledger = createLedger();
+
+    // Concurrent inventory reads of the same product share one query
+    private static final CoalescingProductDAO coalescingDAO = new CoalescingProductDAO(
+            ledger != null ? new LedgerProductDAO(new ProductDAOImpl(), ledger) : new ProductDAOImpl());
+
+    private static final CachingProductDAO cachingDAO = createCache();
+
+    private ProductDAOFactory() {}
+
+    public static ProductDAO getProductDAO() {
+        return cachingDAO;
+    }
+
+    public static CachingProductDAO getProductCache() {
+        return cachingDAO;
+    }
+
+    public static CoalescingProductDAO getRequestCoalescer() {
+        return coalescingDAO;
+    }
+
+    public static void shutdown() {
+        if (ledger != null) {
+            ledger.shutdown();
+        }
+    }
+
+    private static CachingProductDAO createCache() {
+        CachingProductDAO cache = new CachingProductDAO(coalescingDAO,
+                CatalogConfig.getLong("catalog.cache.product.maximum-size", DEFAULT_CACHE_SIZE));
+        cache.getChangeNotifier().addListener(coalescingDAO);
+        return cache;
+    }
+
+    // The in-memory reservation ledger is opt-in; without it inventory updates go straight to SQL
+    private static ReservationLedger createLedger() {
+        if (!CatalogConfig.getBoolean("catalog.inventory.ledger.enabled", false)) {
+            return null;
+        }
+        // The ledger's counters are authoritative once loaded, so they must come from the primary
+        return new ReservationLedger(
+                new ProductDAOImpl(false),
+                Paths.get(CatalogConfig.getString("catalog.inventory.ledger.journal-dir", "data/inventory-ledger")),
+                CatalogConfig.getString("catalog.inventory.ledger.node-id",
+                        CatalogConfig.getString("hostname", "catalog-node")),
+                CatalogConfig.getLong("catalog.inventory.ledger.flush-interval-ms", 200));
+    }
+}
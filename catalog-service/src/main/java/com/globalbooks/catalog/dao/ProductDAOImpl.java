@@ -1,5 +1,6 @@
 package com.globalbooks.catalog.dao;
 
+import com.globalbooks.catalog.config.CatalogConfig;
 import com.globalbooks.catalog.model.*;
 import com.globalbooks.catalog.util.DatabaseConnection;
 import org.slf4j.Logger;
@@ -7,17 +8,49 @@ import org.slf4j.LoggerFactory;
 import java.math.BigDecimal;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
 
 public class ProductDAOImpl implements ProductDAO {
 
     private static final Logger logger = LoggerFactory.getLogger(ProductDAOImpl.class);
 
+    // Explicit column list so the generated search_vector column is never shipped to the client
+    private static final String PRODUCT_COLUMNS = "product_id, title, author, isbn, description, " +
+            "category, price, currency, stock_quantity, publish_date, image_url";
+
+    // Listing columns only, used for summaryOnly searches
+    private static final String SUMMARY_COLUMNS = "product_id, title, author, price, currency, stock_quantity";
+
+    private static final int EXPORT_FETCH_SIZE = CatalogConfig.getInt("catalog.export.fetch-size", 1000);
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final boolean readFromReplica;
+
+    public ProductDAOImpl() {
+        this(true);
+    }
+
+    /**
+     * @param readFromReplica false for callers that must never see replication lag,
+     *                        such as the reservation ledger loading its counters
+     */
+    public ProductDAOImpl(boolean readFromReplica) {
+        this.readFromReplica = readFromReplica;
+    }
+
     @Override
     public Product findById(String productId) {
-        String sql = "SELECT * FROM products WHERE product_id = ?";
+        String sql = "SELECT " + PRODUCT_COLUMNS + " FROM products WHERE product_id = ?";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = readConnection(productId);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setString(1, productId);
@@ -33,37 +66,82 @@ public class ProductDAOImpl implements ProductDAO {
     }
 
     @Override
-    public List<Product> findAll() {
+    public List<Product> findByIds(List<String> productIds) {
         List<Product> products = new ArrayList<>();
-        String sql = "SELECT * FROM products ORDER BY title";
+        if (productIds.isEmpty()) {
+            return products;
+        }
+        String sql = "SELECT " + PRODUCT_COLUMNS + " FROM products WHERE product_id = ANY(?)";
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        try (Connection conn = readConnection(productIds);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setArray(1, conn.createArrayOf("varchar", productIds.toArray()));
+            ResultSet rs = stmt.executeQuery();
 
             while (rs.next()) {
                 products.add(mapResultSetToProduct(rs));
             }
         } catch (SQLException e) {
-            logger.error("Error finding all products", e);
+            logger.error("Error finding products by IDs: {}", productIds, e);
         }
         return products;
     }
 
     @Override
     public List<Product> search(SearchCriteria criteria) {
+        ProductPage page = searchPage(criteria);
+        if (!criteria.isSummaryOnly()) {
+            return page.getProducts();
+        }
+
+        // Partially populated products; the unset detail fields are left out of the SOAP payload
         List<Product> products = new ArrayList<>();
-        StringBuilder sql = new StringBuilder("SELECT * FROM products WHERE 1=1");
+        for (ProductSummary summary : page.getSummaries()) {
+            Product product = new Product();
+            product.setProductId(summary.getProductId());
+            product.setTitle(summary.getTitle());
+            product.setAuthor(summary.getAuthor());
+            product.setPrice(summary.getPrice());
+            product.setCurrency(summary.getCurrency());
+            product.setStockQuantity(summary.getStockQuantity());
+            products.add(product);
+        }
+        return products;
+    }
+
+    @Override
+    public ProductPage searchPage(SearchCriteria criteria) {
+        ProductPage page = new ProductPage();
         List<Object> params = new ArrayList<>();
+        String tsQuery = null;
+        ContinuationToken after = criteria.getContinuationToken() != null
+                ? ContinuationToken.decode(criteria.getContinuationToken()) : null;
 
-        // Build dynamic query based on criteria
         if (criteria.getKeyword() != null && !criteria.getKeyword().isEmpty()) {
-            sql.append(" AND (LOWER(title) LIKE ? OR LOWER(description) LIKE ?)");
-            String keyword = "%" + criteria.getKeyword().toLowerCase() + "%";
-            params.add(keyword);
-            params.add(keyword);
+            tsQuery = toPrefixTsQuery(criteria.getKeyword(), criteria.getKeywordAlternatives());
+            if (tsQuery == null) {
+                // Keyword had no searchable words (only punctuation), nothing can match
+                return page;
+            }
+            params.add(tsQuery);
+        }
+
+        if (after != null && (tsQuery != null) != (after.getRank() != null)) {
+            throw new IllegalArgumentException("Continuation token does not belong to this search");
+        }
+
+        boolean summaryOnly = criteria.isSummaryOnly();
+        StringBuilder sql = new StringBuilder("SELECT ")
+                .append(summaryOnly ? SUMMARY_COLUMNS : PRODUCT_COLUMNS);
+        if (tsQuery != null) {
+            sql.append(", ts_rank(search_vector, query) AS search_rank" +
+                    " FROM products, to_tsquery('english', ?) query WHERE search_vector @@ query");
+        } else {
+            sql.append(" FROM products WHERE 1=1");
         }
 
+        // Build dynamic query based on criteria
         if (criteria.getCategory() != null && !criteria.getCategory().isEmpty()) {
             sql.append(" AND LOWER(category) = ?");
             params.add(criteria.getCategory().toLowerCase());
@@ -88,10 +166,32 @@ public class ProductDAOImpl implements ProductDAO {
             sql.append(" AND stock_quantity > 0");
         }
 
-        sql.append(" ORDER BY title LIMIT ?");
-        params.add(criteria.getMaxResults());
+        // Seek past the last row of the previous page
+        if (after != null && tsQuery != null) {
+            sql.append(" AND (ts_rank(search_vector, query) < ? OR (ts_rank(search_vector, query) = ?" +
+                    " AND (title COLLATE \"C\", product_id COLLATE \"C\") > (?, ?)))");
+            params.add(after.getRank());
+            params.add(after.getRank());
+            params.add(after.getTitle());
+            params.add(after.getProductId());
+        } else if (after != null) {
+            sql.append(" AND (title COLLATE \"C\", product_id COLLATE \"C\") > (?, ?)");
+            params.add(after.getTitle());
+            params.add(after.getProductId());
+        }
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        if (tsQuery != null) {
+            // Title matches outrank author matches, which outrank description matches
+            sql.append(" ORDER BY search_rank DESC, title COLLATE \"C\", product_id COLLATE \"C\" LIMIT ?");
+        } else {
+            // Byte order rather than the database collation, so CatalogSnapshot pages identically
+            sql.append(" ORDER BY title COLLATE \"C\", product_id COLLATE \"C\" LIMIT ?");
+        }
+        // One extra row tells us whether another page exists
+        int pageSize = Math.min(criteria.getMaxResults(), SearchCriteria.MAX_RESULTS_LIMIT);
+        params.add(pageSize + 1);
+
+        try (Connection conn = queryConnection();
              PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
 
             // Set parameters
@@ -103,17 +203,110 @@ public class ProductDAOImpl implements ProductDAO {
                     stmt.setBigDecimal(i + 1, (BigDecimal) param);
                 } else if (param instanceof Integer) {
                     stmt.setInt(i + 1, (Integer) param);
+                } else if (param instanceof Float) {
+                    stmt.setFloat(i + 1, (Float) param);
                 }
             }
 
             ResultSet rs = stmt.executeQuery();
+            int rows = 0;
+            Float lastRank = null;
+            String lastTitle = null;
+            String lastProductId = null;
             while (rs.next()) {
-                products.add(mapResultSetToProduct(rs));
+                if (rows == pageSize) {
+                    page.setContinuationToken(new ContinuationToken(
+                            lastRank, lastTitle, lastProductId).encode());
+                    break;
+                }
+                if (summaryOnly) {
+                    page.getSummaries().add(mapResultSetToSummary(rs));
+                } else {
+                    page.getProducts().add(mapResultSetToProduct(rs));
+                }
+                rows++;
+                lastTitle = rs.getString("title");
+                lastProductId = rs.getString("product_id");
+                if (tsQuery != null) {
+                    lastRank = rs.getFloat("search_rank");
+                }
             }
         } catch (SQLException e) {
             logger.error("Error searching products", e);
         }
-        return products;
+        return page;
+    }
+
+    @Override
+    public List<String> findIdsMatchingText(SearchCriteria criteria) {
+        List<String> productIds = new ArrayList<>();
+        List<String> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT product_id FROM products WHERE 1=1");
+        String keyword = criteria.getKeyword();
+        String author = criteria.getAuthor();
+
+        if (keyword != null && !keyword.isEmpty()) {
+            String tsQuery = toPrefixTsQuery(keyword, criteria.getKeywordAlternatives());
+            if (tsQuery == null) {
+                return productIds;
+            }
+            sql.append(" AND search_vector @@ to_tsquery('english', ?)");
+            params.add(tsQuery);
+        }
+
+        if (author != null && !author.isEmpty()) {
+            sql.append(" AND LOWER(author) LIKE ?");
+            params.add("%" + author.toLowerCase() + "%");
+        }
+
+        try (Connection conn = queryConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setString(i + 1, params.get(i));
+            }
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                productIds.add(rs.getString(1));
+            }
+        } catch (SQLException e) {
+            logger.error("Error finding products matching keyword {} and author {}", keyword, author, e);
+            return null;
+        }
+        return productIds;
+    }
+
+    @Override
+    public long streamAll(Consumer<Product> consumer) {
+        String sql = "SELECT " + PRODUCT_COLUMNS + " FROM products ORDER BY product_id";
+        long count = 0;
+
+        try (Connection conn = queryConnection()) {
+            // The PostgreSQL driver only uses a server-side cursor (and honours the fetch size)
+            // inside a transaction; with autocommit on it buffers the whole result set
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                stmt.setFetchSize(EXPORT_FETCH_SIZE);
+
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        consumer.accept(mapResultSetToProduct(rs));
+                        count++;
+                    }
+                }
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException | RuntimeException e) {
+            logger.error("Error streaming products after {} rows", count, e);
+            return -1;
+        }
+        return count;
     }
 
     @Override
@@ -121,7 +314,7 @@ public class ProductDAOImpl implements ProductDAO {
         String sql = "SELECT product_id, stock_quantity, reserved_quantity, " +
                 "warehouse_location, restock_date FROM products WHERE product_id = ?";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = readConnection(productId);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setString(1, productId);
@@ -153,50 +346,162 @@ public class ProductDAOImpl implements ProductDAO {
 
     @Override
     public boolean updateInventory(String productId, int quantity, String operation) {
-        String sql = "";
+        String sql = inventoryUpdateSql(operation);
+        if (sql == null) {
+            logger.error("Invalid operation: {}", operation);
+            return false;
+        }
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            bindInventoryUpdate(stmt, productId, quantity, operation);
+            int rowsAffected = stmt.executeUpdate();
+            return rowsAffected > 0;
+
+        } catch (SQLException e) {
+            logger.error("Error updating inventory for product: {}", productId, e);
+            return false;
+        } finally {
+            ReadRouting.recordWrite(productId);
+        }
+    }
+
+    @Override
+    public BulkInventoryUpdateResult bulkUpdateInventory(List<InventoryUpdate> updates) {
+        BulkInventoryUpdateResult result = new BulkInventoryUpdateResult();
+
+        for (InventoryUpdate update : updates) {
+            if (inventoryUpdateSql(update.getOperation()) == null) {
+                logger.error("Invalid operation: {}", update.getOperation());
+                for (InventoryUpdate line : updates) {
+                    result.getResults().add(new InventoryUpdateResult(line, false,
+                            line == update ? "Invalid operation" : "Not applied"));
+                }
+                return result;
+            }
+        }
+
+        // Apply lines in product_id order so concurrent bulk updates lock rows in the same
+        // order and cannot deadlock; the sort is stable, so lines for one product keep their order
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < updates.size(); i++) {
+            order.add(i);
+        }
+        order.sort(Comparator.comparing(i -> updates.get(i).getProductId()));
+
+        int[] rowCounts = new int[updates.size()];
+        boolean committed;
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            Map<String, PreparedStatement> statements = new HashMap<>();
+            try {
+                // Consecutive lines with the same operation go out as one JDBC batch
+                String batchOperation = null;
+                List<Integer> batchLines = new ArrayList<>();
+                for (int line : order) {
+                    InventoryUpdate update = updates.get(line);
+                    if (!update.getOperation().equals(batchOperation)) {
+                        executeInventoryBatch(statements.get(batchOperation), batchLines, rowCounts);
+                        batchOperation = update.getOperation();
+                    }
+
+                    PreparedStatement stmt = statements.get(batchOperation);
+                    if (stmt == null) {
+                        stmt = conn.prepareStatement(inventoryUpdateSql(batchOperation));
+                        statements.put(batchOperation, stmt);
+                    }
+                    bindInventoryUpdate(stmt, update.getProductId(), update.getQuantity(), batchOperation);
+                    stmt.addBatch();
+                    batchLines.add(line);
+                }
+                executeInventoryBatch(statements.get(batchOperation), batchLines, rowCounts);
+
+                committed = Arrays.stream(rowCounts).allMatch(count -> count > 0);
+                if (committed) {
+                    conn.commit();
+                } else {
+                    conn.rollback();
+                }
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                for (PreparedStatement stmt : statements.values()) {
+                    stmt.close();
+                }
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            logger.error("Error applying bulk inventory update of {} lines", updates.size(), e);
+            return null;
+        } finally {
+            for (InventoryUpdate update : updates) {
+                ReadRouting.recordWrite(update.getProductId());
+            }
+        }
+
+        result.setCommitted(committed);
+        for (int i = 0; i < updates.size(); i++) {
+            if (committed) {
+                result.getResults().add(new InventoryUpdateResult(updates.get(i), true, "Applied"));
+            } else if (rowCounts[i] == 0) {
+                result.getResults().add(new InventoryUpdateResult(updates.get(i), false,
+                        "Insufficient stock or product not found"));
+            } else {
+                result.getResults().add(new InventoryUpdateResult(updates.get(i), false, "Rolled back"));
+            }
+        }
+        return result;
+    }
 
+    private void executeInventoryBatch(PreparedStatement stmt, List<Integer> lines, int[] rowCounts)
+            throws SQLException {
+        if (stmt == null || lines.isEmpty()) {
+            return;
+        }
+        int[] counts = stmt.executeBatch();
+        for (int i = 0; i < counts.length; i++) {
+            rowCounts[lines.get(i)] = counts[i];
+        }
+        lines.clear();
+    }
+
+    private static String inventoryUpdateSql(String operation) {
+        if (operation == null) {
+            return null;
+        }
         switch (operation) {
             case "RESERVE":
-                sql = "UPDATE products SET reserved_quantity = reserved_quantity + ? " +
+                return "UPDATE products SET reserved_quantity = reserved_quantity + ? " +
                         "WHERE product_id = ? AND stock_quantity >= reserved_quantity + ?";
-                break;
             case "RELEASE":
-                sql = "UPDATE products SET reserved_quantity = GREATEST(0, reserved_quantity - ?) " +
+                return "UPDATE products SET reserved_quantity = GREATEST(0, reserved_quantity - ?) " +
                         "WHERE product_id = ?";
-                break;
             case "DEDUCT":
-                sql = "UPDATE products SET stock_quantity = stock_quantity - ?, " +
+                return "UPDATE products SET stock_quantity = stock_quantity - ?, " +
                         "reserved_quantity = GREATEST(0, reserved_quantity - ?) " +
                         "WHERE product_id = ? AND stock_quantity >= ?";
-                break;
             default:
-                logger.error("Invalid operation: {}", operation);
-                return false;
+                return null;
         }
+    }
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            if (operation.equals("RESERVE")) {
-                stmt.setInt(1, quantity);
-                stmt.setString(2, productId);
-                stmt.setInt(3, quantity);
-            } else if (operation.equals("RELEASE")) {
-                stmt.setInt(1, quantity);
-                stmt.setString(2, productId);
-            } else if (operation.equals("DEDUCT")) {
-                stmt.setInt(1, quantity);
-                stmt.setInt(2, quantity);
-                stmt.setString(3, productId);
-                stmt.setInt(4, quantity);
-            }
-
-            int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
-
-        } catch (SQLException e) {
-            logger.error("Error updating inventory for product: {}", productId, e);
-            return false;
+    private static void bindInventoryUpdate(PreparedStatement stmt, String productId, int quantity,
+                                            String operation) throws SQLException {
+        if (operation.equals("RESERVE")) {
+            stmt.setInt(1, quantity);
+            stmt.setString(2, productId);
+            stmt.setInt(3, quantity);
+        } else if (operation.equals("RELEASE")) {
+            stmt.setInt(1, quantity);
+            stmt.setString(2, productId);
+        } else if (operation.equals("DEDUCT")) {
+            stmt.setInt(1, quantity);
+            stmt.setInt(2, quantity);
+            stmt.setString(3, productId);
+            stmt.setInt(4, quantity);
         }
     }
 
@@ -216,6 +521,8 @@ public class ProductDAOImpl implements ProductDAO {
         } catch (SQLException e) {
             logger.error("Error saving product: {}", product.getProductId(), e);
             return false;
+        } finally {
+            ReadRouting.recordWrite(product.getProductId());
         }
     }
 
@@ -252,6 +559,8 @@ public class ProductDAOImpl implements ProductDAO {
         } catch (SQLException e) {
             logger.error("Error updating product: {}", product.getProductId(), e);
             return false;
+        } finally {
+            ReadRouting.recordWrite(product.getProductId());
         }
     }
 
@@ -269,7 +578,50 @@ public class ProductDAOImpl implements ProductDAO {
         } catch (SQLException e) {
             logger.error("Error deleting product: {}", productId, e);
             return false;
+        } finally {
+            ReadRouting.recordWrite(productId);
+        }
+    }
+
+    private Connection readConnection(String productId) throws SQLException {
+        return readFromReplica ? ReadRouting.connectionFor(productId) : DatabaseConnection.getConnection();
+    }
+
+    private Connection readConnection(List<String> productIds) throws SQLException {
+        return readFromReplica ? ReadRouting.connectionFor(productIds) : DatabaseConnection.getConnection();
+    }
+
+    private Connection queryConnection() throws SQLException {
+        return readFromReplica ? ReadRouting.queryConnection() : DatabaseConnection.getConnection();
+    }
+
+    /**
+     * Turns free text into a tsquery matching every word as a prefix, e.g.
+     * "pragmatic prog" becomes "pragmatic:* & prog:*". A word with alternatives (fuzzy
+     * searches) also matches any of them: "pragmatc" becomes "(pragmatc:* | pragmatic)".
+     * Returns null if no words remain.
+     */
+    private String toPrefixTsQuery(String keyword, Map<String, List<String>> alternatives) {
+        StringBuilder query = new StringBuilder();
+        for (String word : NON_WORD.split(keyword.toLowerCase())) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            if (query.length() > 0) {
+                query.append(" & ");
+            }
+            List<String> spellings = alternatives.getOrDefault(word, Collections.emptyList());
+            if (spellings.isEmpty()) {
+                query.append(word).append(":*");
+                continue;
+            }
+            query.append('(').append(word).append(":*");
+            for (String spelling : spellings) {
+                query.append(" | ").append(spelling);
+            }
+            query.append(')');
         }
+        return query.length() > 0 ? query.toString() : null;
     }
 
     private Product mapResultSetToProduct(ResultSet rs) throws SQLException {
@@ -293,6 +645,17 @@ public class ProductDAOImpl implements ProductDAO {
         return product;
     }
 
+    private ProductSummary mapResultSetToSummary(ResultSet rs) throws SQLException {
+        ProductSummary summary = new ProductSummary();
+        summary.setProductId(rs.getString("product_id"));
+        summary.setTitle(rs.getString("title"));
+        summary.setAuthor(rs.getString("author"));
+        summary.setPrice(rs.getBigDecimal("price"));
+        summary.setCurrency(rs.getString("currency"));
+        summary.setStockQuantity(rs.getInt("stock_quantity"));
+        return summary;
+    }
+
     private void setProductParameters(PreparedStatement stmt, Product product) throws SQLException {
         stmt.setString(1, product.getProductId());
         stmt.setString(2, product.getTitle());
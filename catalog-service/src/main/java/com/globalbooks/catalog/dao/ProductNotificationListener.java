@@ -0,0 +1,120 @@
+package com.globalbooks.catalog.dao;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.globalbooks.catalog.util.DatabaseConnection;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Keeps the local product cache in step with writes made by other catalog nodes. Holds
+ * a dedicated LISTEN session on the product_changes channel fed by the products triggers
+ * in schema.sql and evicts each product named in a notification, which also drops the
+ * cached SOAP responses through the ProductChangeNotifier.
+ *
+ * Notifications sent while the session is down are lost, so after every (re)connect the
+ * whole cache is cleared.
+ */
+public class ProductNotificationListener implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductNotificationListener.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final String CHANNEL = "product_changes";
+
+    private final CachingProductDAO productCache;
+    private final int pollMillis;
+    private final long reconnectMillis;
+    private volatile Connection connection;
+
+    public ProductNotificationListener(CachingProductDAO productCache, int pollMillis, long reconnectMillis) {
+        this.productCache = productCache;
+        this.pollMillis = pollMillis;
+        this.reconnectMillis = reconnectMillis;
+    }
+
+    @Override
+    public void run() {
+        boolean connectedBefore = false;
+        while (!Thread.currentThread().isInterrupted()) {
+            try (Connection conn = DatabaseConnection.openDedicatedConnection()) {
+                connection = conn;
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("LISTEN " + CHANNEL);
+                }
+                if (connectedBefore) {
+                    productCache.invalidateAll();
+                    logger.info("Re-subscribed to {}, product cache cleared", CHANNEL);
+                } else {
+                    logger.info("Listening for product changes on {}", CHANNEL);
+                }
+                connectedBefore = true;
+
+                PGConnection pgConnection = conn.unwrap(PGConnection.class);
+                while (!Thread.currentThread().isInterrupted()) {
+                    PGNotification[] notifications = pgConnection.getNotifications(pollMillis);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            apply(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (Thread.currentThread().isInterrupted()) {
+                    break;
+                }
+                logger.warn("Product change subscription lost, reconnecting in {} ms: {}",
+                        reconnectMillis, e.getMessage());
+                try {
+                    Thread.sleep(reconnectMillis);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            } finally {
+                connection = null;
+            }
+        }
+        logger.info("Product change listener stopped");
+    }
+
+    /**
+     * Interrupts a blocked wait by closing the session; call after interrupting the thread.
+     */
+    public void close() {
+        Connection conn = connection;
+        if (conn != null) {
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                logger.debug("Error closing product change session", e);
+            }
+        }
+    }
+
+    private void apply(String payload) {
+        String productId;
+        try {
+            JsonNode change = MAPPER.readTree(payload);
+            productId = change.path("product_id").isTextual() ? change.path("product_id").asText() : null;
+        } catch (IOException e) {
+            logger.warn("Ignoring malformed product change notification: {}", payload);
+            return;
+        }
+
+        if (productId == null) {
+            productCache.invalidateAll();
+            logger.info("All products changed, product cache cleared");
+            return;
+        }
+        // The replica may not have this change yet; re-read it from the primary
+        ReadRouting.recordWrite(productId);
+        productCache.invalidate(productId);
+        logger.debug("Evicted product {} after {}", productId, payload);
+    }
+}
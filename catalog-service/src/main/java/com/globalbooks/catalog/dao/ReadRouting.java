@@ -0,0 +1,59 @@
+package com.globalbooks.catalog.dao;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.globalbooks.catalog.config.CatalogConfig;
+import com.globalbooks.catalog.util.DatabaseConnection;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides whether a read may go to the replica. Every product written through
+ * ProductDAOImpl is pinned to the primary for catalog.replica.read-your-writes-ms
+ * (default 5000), which must exceed the replica's usual lag: a reservation followed by
+ * checkInventory or a re-read after cache eviction then sees its own write.
+ * Multi-product searches and exports always read from the replica. Code that writes
+ * products outside ProductDAOImpl must call {@link #recordWrites(Collection)} itself.
+ */
+public final class ReadRouting {
+
+    private static final Cache<String, Boolean> recentWrites = Caffeine.newBuilder()
+            .expireAfterWrite(CatalogConfig.getLong("catalog.replica.read-your-writes-ms", 5000),
+                    TimeUnit.MILLISECONDS)
+            .maximumSize(CatalogConfig.getLong("catalog.replica.read-your-writes-max-products", 100000))
+            .build();
+
+    private ReadRouting() {}
+
+    public static void recordWrite(String productId) {
+        if (DatabaseConnection.hasReplica() && productId != null) {
+            recentWrites.put(productId, Boolean.TRUE);
+        }
+    }
+
+    public static void recordWrites(Collection<String> productIds) {
+        for (String productId : productIds) {
+            recordWrite(productId);
+        }
+    }
+
+    static Connection connectionFor(String productId) throws SQLException {
+        if (recentWrites.getIfPresent(productId) != null) {
+            return DatabaseConnection.getConnection();
+        }
+        return DatabaseConnection.getReadConnection();
+    }
+
+    static Connection connectionFor(Collection<String> productIds) throws SQLException {
+        if (!DatabaseConnection.hasReplica() || !recentWrites.getAllPresent(productIds).isEmpty()) {
+            return DatabaseConnection.getConnection();
+        }
+        return DatabaseConnection.getReadConnection();
+    }
+
+    static Connection queryConnection() throws SQLException {
+        return DatabaseConnection.getReadConnection();
+    }
+}
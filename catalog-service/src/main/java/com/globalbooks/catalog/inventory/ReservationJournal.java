@@ -0,0 +1,218 @@
+package com.globalbooks.catalog.inventory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, segmented journal of inventory deltas.
+ * Callers append under their own locks and then wait in {@link #awaitDurable(long)};
+ * whichever waiter gets there first forces everything written so far, so concurrent
+ * reservations share one fsync (group commit).
+ */
+class ReservationJournal implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservationJournal.class);
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final Object appendLock = new Object();
+    private final Object syncLock = new Object();
+    private final List<Path> closedSegments = new ArrayList<>();
+
+    private FileChannel channel;
+    private Path currentSegment;
+    private long nextSegmentIndex;
+
+    // Logical byte positions across all segments
+    private volatile long writtenPosition;
+    private long syncedPosition;
+
+    static final class Record {
+        final long sequence;
+        final String productId;
+        final int stockDelta;
+        final int reservedDelta;
+
+        Record(long sequence, String productId, int stockDelta, int reservedDelta) {
+            this.sequence = sequence;
+            this.productId = productId;
+            this.stockDelta = stockDelta;
+            this.reservedDelta = reservedDelta;
+        }
+
+        // Deltas are never both zero, so a zero record marks the same-sequence record as not applied
+        static Record cancelling(Record record) {
+            return new Record(record.sequence, record.productId, 0, 0);
+        }
+
+        boolean isCancellation() {
+            return stockDelta == 0 && reservedDelta == 0;
+        }
+    }
+
+    ReservationJournal(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        List<Path> existing = listSegments();
+        closedSegments.addAll(existing);
+        nextSegmentIndex = existing.isEmpty() ? 1 : segmentIndex(existing.get(existing.size() - 1)) + 1;
+        openSegment();
+    }
+
+    /**
+     * Reads every record from all segments, oldest first. Lines failing their checksum,
+     * such as a torn final line left by a crash mid-write, are skipped.
+     */
+    List<Record> readAll() throws IOException {
+        List<Record> records = new ArrayList<>();
+        List<Path> segments = new ArrayList<>(closedSegments);
+        segments.add(currentSegment);
+        for (Path segment : segments) {
+            try (BufferedReader reader = Files.newBufferedReader(segment, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    Record record = parse(line);
+                    if (record != null) {
+                        records.add(record);
+                    } else {
+                        logger.warn("Skipping unreadable journal line in {}", segment);
+                    }
+                }
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Writes the records in a single write call and returns the position to pass
+     * to {@link #awaitDurable(long)}.
+     */
+    long append(List<Record> records) throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (Record record : records) {
+            String body = record.sequence + "," + record.stockDelta + "," +
+                    record.reservedDelta + "," + record.productId;
+            lines.append(checksum(body)).append(',').append(body).append('\n');
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+
+        synchronized (appendLock) {
+            long length = buffer.remaining();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            writtenPosition += length;
+            return writtenPosition;
+        }
+    }
+
+    void awaitDurable(long position) throws IOException {
+        synchronized (syncLock) {
+            if (syncedPosition >= position) {
+                return;
+            }
+            long target = writtenPosition;
+            channel.force(false);
+            syncedPosition = target;
+        }
+    }
+
+    /**
+     * Closes the current segment and starts a new one. Returns every closed segment
+     * not yet deleted; they can be removed once their deltas are committed.
+     */
+    List<Path> rotate() throws IOException {
+        synchronized (appendLock) {
+            synchronized (syncLock) {
+                channel.force(false);
+                syncedPosition = writtenPosition;
+                channel.close();
+                closedSegments.add(currentSegment);
+                openSegment();
+                return new ArrayList<>(closedSegments);
+            }
+        }
+    }
+
+    void delete(List<Path> segments) throws IOException {
+        synchronized (appendLock) {
+            for (Path segment : segments) {
+                Files.deleteIfExists(segment);
+                closedSegments.remove(segment);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (appendLock) {
+            synchronized (syncLock) {
+                channel.force(false);
+                channel.close();
+            }
+        }
+    }
+
+    private void openSegment() throws IOException {
+        currentSegment = directory.resolve(String.format("%s%012d%s",
+                SEGMENT_PREFIX, nextSegmentIndex++, SEGMENT_SUFFIX));
+        channel = FileChannel.open(currentSegment, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private List<Path> listSegments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+                SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path segment : stream) {
+                segments.add(segment);
+            }
+        }
+        // Zero-padded indexes sort chronologically
+        Collections.sort(segments);
+        return segments;
+    }
+
+    private static long segmentIndex(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    // Line format: crc32,sequence,stockDelta,reservedDelta,productId
+    private static Record parse(String line) {
+        int comma = line.indexOf(',');
+        if (comma < 0 || !line.substring(0, comma).equals(checksum(line.substring(comma + 1)))) {
+            return null;
+        }
+        String[] parts = line.substring(comma + 1).split(",", 4);
+        if (parts.length != 4 || parts[3].isEmpty()) {
+            return null;
+        }
+        try {
+            return new Record(Long.parseLong(parts[0]), parts[3],
+                    Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String checksum(String body) {
+        CRC32 crc = new CRC32();
+        crc.update(body.getBytes(StandardCharsets.UTF_8));
+        return Long.toHexString(crc.getValue());
+    }
+}
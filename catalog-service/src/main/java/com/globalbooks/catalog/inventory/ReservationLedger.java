@@ -0,0 +1,616 @@
+package com.globalbooks.catalog.inventory;
+
+import com.globalbooks.catalog.dao.ProductDAO;
+import com.globalbooks.catalog.dao.ReadRouting;
+import com.globalbooks.catalog.model.InventoryStatus;
+import com.globalbooks.catalog.model.InventoryUpdate;
+import com.globalbooks.catalog.util.DatabaseConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * In-memory stock and reservation counters for hot products.
+ *
+ * RESERVE, RELEASE and DEDUCT are decided against lock-striped counters and acknowledged
+ * once their deltas are fsynced to a local journal. A background task periodically writes
+ * the aggregated deltas to the products table in one transaction, together with the journal
+ * sequence they cover, so replay after a crash applies each delta exactly once. A delta
+ * the database refuses is moved to inventory_ledger_rejects in that same transaction, so
+ * the checkpoint never passes an acknowledged change that was neither applied nor kept.
+ *
+ * The counters assume this node is the only writer of stock_quantity and reserved_quantity
+ * for the products it has loaded; inventory writes must not be spread across several nodes
+ * running the ledger.
+ */
+public class ReservationLedger {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservationLedger.class);
+    private static final int STRIPES = 64;
+
+    private final ProductDAO store;
+    private final ReservationJournal journal;
+    private final String nodeId;
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    // Shared by reservations, exclusive while a flush takes its snapshot
+    private final ReentrantReadWriteLock snapshotLock = new ReentrantReadWriteLock();
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong rejectedDeltas = new AtomicLong();
+    private final ScheduledExecutorService flusher;
+
+    // Guarded by the product's stripe lock
+    private static final class Entry {
+        int stock;
+        int reserved;
+        int pendingStock;
+        int pendingReserved;
+    }
+
+    private static final class Snapshot {
+        final Map<String, int[]> deltas;
+        final long lastSequence;
+        final List<Path> segments;
+
+        Snapshot(Map<String, int[]> deltas, long lastSequence, List<Path> segments) {
+            this.deltas = deltas;
+            this.lastSequence = lastSequence;
+            this.segments = segments;
+        }
+    }
+
+    public ReservationLedger(ProductDAO store, Path journalDirectory, String nodeId, long flushIntervalMillis) {
+        this.store = store;
+        this.nodeId = nodeId;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+
+        try {
+            this.journal = new ReservationJournal(journalDirectory);
+            recover();
+        } catch (IOException | SQLException e) {
+            logger.error("Failed to recover inventory ledger from {}", journalDirectory, e);
+            throw new RuntimeException("Failed to recover inventory ledger", e);
+        }
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "inventory-ledger-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis,
+                flushIntervalMillis, TimeUnit.MILLISECONDS);
+        logger.info("Inventory ledger started for node {} with journal {}, flushing every {} ms",
+                nodeId, journalDirectory, flushIntervalMillis);
+    }
+
+    /**
+     * Applies every line or none. Returns, per line, whether it could be applied on its own
+     * terms (enough stock, known product); the updates were applied only if all are true.
+     * An IOException means the journal could not make them durable and nothing was applied.
+     */
+    public boolean[] apply(List<InventoryUpdate> updates) throws IOException {
+        boolean[] applicable = new boolean[updates.size()];
+        List<ReservationJournal.Record> records = new ArrayList<>();
+
+        // Lock the stripes in index order so multi-product requests cannot deadlock
+        Set<Integer> stripeIndexes = new TreeSet<>();
+        for (InventoryUpdate update : updates) {
+            stripeIndexes.add(stripeIndex(update.getProductId()));
+        }
+
+        snapshotLock.readLock().lock();
+        try {
+            for (int index : stripeIndexes) {
+                stripes[index].lock();
+            }
+            try {
+                // Work on copies first so a failing line leaves every counter untouched
+                Map<String, int[]> working = new HashMap<>();
+                boolean allApplicable = true;
+                for (int i = 0; i < updates.size(); i++) {
+                    InventoryUpdate update = updates.get(i);
+                    int[] counters = working.get(update.getProductId());
+                    if (counters == null) {
+                        Entry entry = loadEntry(update.getProductId());
+                        counters = entry != null ? new int[]{entry.stock, entry.reserved} : null;
+                        working.put(update.getProductId(), counters);
+                    }
+                    applicable[i] = counters != null && applyTo(counters, update);
+                    allApplicable &= applicable[i];
+                }
+                if (!allApplicable) {
+                    return applicable;
+                }
+
+                for (Map.Entry<String, int[]> change : working.entrySet()) {
+                    Entry entry = entries.get(change.getKey());
+                    int stockDelta = change.getValue()[0] - entry.stock;
+                    int reservedDelta = change.getValue()[1] - entry.reserved;
+                    if (stockDelta != 0 || reservedDelta != 0) {
+                        records.add(new ReservationJournal.Record(sequence.incrementAndGet(),
+                                change.getKey(), stockDelta, reservedDelta));
+                    }
+                }
+                if (records.isEmpty()) {
+                    return applicable;
+                }
+
+                // The stripes stay locked until the records are durable, so no other caller
+                // decides against counters that may yet be abandoned; callers on other stripes
+                // still share the fsync
+                long position = journal.append(records);
+                try {
+                    journal.awaitDurable(position);
+                } catch (IOException e) {
+                    cancel(records);
+                    throw e;
+                }
+
+                for (ReservationJournal.Record record : records) {
+                    Entry entry = entries.get(record.productId);
+                    entry.stock += record.stockDelta;
+                    entry.reserved += record.reservedDelta;
+                    entry.pendingStock += record.stockDelta;
+                    entry.pendingReserved += record.reservedDelta;
+                    dirty.add(record.productId);
+                }
+            } finally {
+                for (int index : stripeIndexes) {
+                    stripes[index].unlock();
+                }
+            }
+        } finally {
+            snapshotLock.readLock().unlock();
+        }
+        return applicable;
+    }
+
+    /**
+     * Current in-memory counters as {stock, reserved}, or null if the product is not loaded.
+     */
+    public int[] getCounters(String productId) {
+        ReentrantLock stripe = stripes[stripeIndex(productId)];
+        stripe.lock();
+        try {
+            Entry entry = entries.get(productId);
+            return entry != null ? new int[]{entry.stock, entry.reserved} : null;
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    /**
+     * Runs a direct write to a product row with all reservations paused: pending deltas are
+     * written first and the product's counters are reloaded from the database afterwards.
+     */
+    public synchronized <T> T runExclusive(String productId, Supplier<T> write) throws SQLException {
+        snapshotLock.writeLock().lock();
+        try {
+            commit(takeSnapshot());
+            T result = write.get();
+            entries.remove(productId);
+            return result;
+        } finally {
+            snapshotLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Product deltas the database has refused since this ledger started, each now a row in
+     * inventory_ledger_rejects awaiting manual reconciliation.
+     */
+    public long getRejectedDeltaCount() {
+        return rejectedDeltas.get();
+    }
+
+    public synchronized void flush() throws SQLException {
+        Snapshot snapshot;
+        snapshotLock.writeLock().lock();
+        try {
+            snapshot = takeSnapshot();
+        } finally {
+            snapshotLock.writeLock().unlock();
+        }
+        commit(snapshot);
+    }
+
+    public void shutdown() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+            flush();
+            journal.close();
+            logger.info("Inventory ledger flushed and stopped");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | SQLException e) {
+            // Unflushed deltas stay in the journal and are replayed on the next start
+            logger.error("Failed to flush inventory ledger on shutdown", e);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            logger.error("Inventory ledger flush failed, will retry", e);
+        }
+    }
+
+    // Caller holds the snapshot write lock
+    private Snapshot takeSnapshot() {
+        Map<String, int[]> deltas = new HashMap<>();
+        for (String productId : dirty) {
+            Entry entry = entries.get(productId);
+            if (entry.pendingStock != 0 || entry.pendingReserved != 0) {
+                deltas.put(productId, new int[]{entry.pendingStock, entry.pendingReserved});
+                entry.pendingStock = 0;
+                entry.pendingReserved = 0;
+            }
+        }
+        dirty.clear();
+
+        List<Path> segments = new ArrayList<>();
+        if (deltas.isEmpty()) {
+            return new Snapshot(deltas, sequence.get(), segments);
+        }
+        try {
+            segments = journal.rotate();
+        } catch (IOException e) {
+            // Keep appending to the old segment; it is deleted by a later successful flush
+            logger.warn("Failed to rotate inventory journal", e);
+        }
+        return new Snapshot(deltas, sequence.get(), segments);
+    }
+
+    private void commit(Snapshot snapshot) throws SQLException {
+        if (snapshot.deltas.isEmpty()) {
+            return;
+        }
+        Set<String> rejected;
+        try {
+            rejected = writeDeltas(snapshot.deltas, snapshot.lastSequence);
+        } catch (SQLException e) {
+            restore(snapshot.deltas);
+            throw e;
+        }
+        discard(rejected);
+        // Evicted counters are re-read from the database, which the replica may not have caught up with
+        ReadRouting.recordWrites(snapshot.deltas.keySet());
+
+        try {
+            journal.delete(snapshot.segments);
+        } catch (IOException e) {
+            // Harmless: the checkpoint stops these records from being replayed again
+            logger.warn("Failed to delete flushed journal segments", e);
+        }
+        evictClean(snapshot.deltas.keySet());
+        logger.debug("Flushed inventory deltas for {} products up to sequence {}",
+                snapshot.deltas.size(), snapshot.lastSequence);
+    }
+
+    // Puts deltas from a failed flush back so the next flush retries them
+    private void restore(Map<String, int[]> deltas) {
+        snapshotLock.readLock().lock();
+        try {
+            for (Map.Entry<String, int[]> delta : deltas.entrySet()) {
+                ReentrantLock stripe = stripes[stripeIndex(delta.getKey())];
+                stripe.lock();
+                try {
+                    Entry entry = entries.get(delta.getKey());
+                    entry.pendingStock += delta.getValue()[0];
+                    entry.pendingReserved += delta.getValue()[1];
+                    dirty.add(delta.getKey());
+                } finally {
+                    stripe.unlock();
+                }
+            }
+        } finally {
+            snapshotLock.readLock().unlock();
+        }
+    }
+
+    // Forgets counters the database refused so the next reservation reloads them from the row,
+    // the only state left to trust. Deltas acknowledged since the snapshot stay pending: the
+    // next flush applies them or records them as rejects, and the counters are dropped then.
+    private void discard(Set<String> productIds) {
+        snapshotLock.readLock().lock();
+        try {
+            for (String productId : productIds) {
+                ReentrantLock stripe = stripes[stripeIndex(productId)];
+                stripe.lock();
+                try {
+                    Entry entry = entries.get(productId);
+                    if (entry != null && entry.pendingStock == 0 && entry.pendingReserved == 0) {
+                        entries.remove(productId);
+                    }
+                } finally {
+                    stripe.unlock();
+                }
+            }
+        } finally {
+            snapshotLock.readLock().unlock();
+        }
+    }
+
+    // Drops counters with nothing pending, now that the database holds the same values
+    private void evictClean(Set<String> productIds) {
+        snapshotLock.readLock().lock();
+        try {
+            for (String productId : productIds) {
+                ReentrantLock stripe = stripes[stripeIndex(productId)];
+                stripe.lock();
+                try {
+                    Entry entry = entries.get(productId);
+                    if (entry != null && entry.pendingStock == 0 && entry.pendingReserved == 0) {
+                        entries.remove(productId);
+                    }
+                } finally {
+                    stripe.unlock();
+                }
+            }
+        } finally {
+            snapshotLock.readLock().unlock();
+        }
+    }
+
+    // The failed records may still reach the disk, so journal a cancellation for each: replay
+    // skips a cancelled sequence, and a cancellation whose record never made it matches nothing
+    private void cancel(List<ReservationJournal.Record> records) {
+        List<ReservationJournal.Record> cancellations = new ArrayList<>();
+        for (ReservationJournal.Record record : records) {
+            cancellations.add(ReservationJournal.Record.cancelling(record));
+        }
+        try {
+            journal.append(cancellations);
+        } catch (IOException e) {
+            logger.error("Failed to journal the cancellation of {} inventory deltas", records.size(), e);
+        }
+    }
+
+    // Same rules as the UPDATE statements in ProductDAOImpl.updateInventory
+    static boolean applyTo(int[] counters, InventoryUpdate update) {
+        int quantity = update.getQuantity();
+        switch (update.getOperation()) {
+            case "RESERVE":
+                if (counters[0] < counters[1] + quantity) {
+                    return false;
+                }
+                counters[1] += quantity;
+                return true;
+            case "RELEASE":
+                counters[1] = Math.max(0, counters[1] - quantity);
+                return true;
+            case "DEDUCT":
+                if (counters[0] < quantity) {
+                    return false;
+                }
+                counters[0] -= quantity;
+                counters[1] = Math.max(0, counters[1] - quantity);
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    // Caller holds the product's stripe lock
+    private Entry loadEntry(String productId) {
+        Entry entry = entries.get(productId);
+        if (entry == null) {
+            InventoryStatus status = store.getInventoryStatus(productId);
+            if (status == null) {
+                return null;
+            }
+            entry = new Entry();
+            entry.reserved = status.getReservedQuantity();
+            entry.stock = status.getAvailableQuantity() + status.getReservedQuantity();
+            entries.put(productId, entry);
+        }
+        return entry;
+    }
+
+    private int stripeIndex(String productId) {
+        return Math.floorMod(productId.hashCode(), STRIPES);
+    }
+
+    private void recover() throws IOException, SQLException {
+        long checkpoint = readCheckpoint();
+        long lastSequence = checkpoint;
+        List<ReservationJournal.Record> records = journal.readAll();
+        for (ReservationJournal.Record record : records) {
+            lastSequence = Math.max(lastSequence, record.sequence);
+        }
+        Map<String, int[]> deltas = unflushedDeltas(records, checkpoint);
+
+        if (!deltas.isEmpty()) {
+            writeDeltas(deltas, lastSequence);
+            logger.info("Replayed journaled inventory deltas for {} products up to sequence {}",
+                    deltas.size(), lastSequence);
+        }
+        journal.delete(journal.rotate());
+        sequence.set(lastSequence);
+    }
+
+    // Per product {stock, reserved} delta of the records after the checkpoint, less cancelled ones
+    static Map<String, int[]> unflushedDeltas(List<ReservationJournal.Record> records, long checkpoint) {
+        Set<Long> cancelled = new HashSet<>();
+        for (ReservationJournal.Record record : records) {
+            if (record.isCancellation()) {
+                cancelled.add(record.sequence);
+            }
+        }
+        Map<String, int[]> deltas = new HashMap<>();
+        for (ReservationJournal.Record record : records) {
+            if (record.sequence <= checkpoint || record.isCancellation() || cancelled.contains(record.sequence)) {
+                continue;
+            }
+            int[] delta = deltas.computeIfAbsent(record.productId, id -> new int[2]);
+            delta[0] += record.stockDelta;
+            delta[1] += record.reservedDelta;
+        }
+        return deltas;
+    }
+
+    private long readCheckpoint() throws SQLException {
+        String sql = "SELECT last_sequence FROM inventory_ledger_checkpoint WHERE node_id = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, nodeId);
+            ResultSet rs = stmt.executeQuery();
+            return rs.next() ? rs.getLong("last_sequence") : 0;
+        }
+    }
+
+    /**
+     * Writes the deltas and the checkpoint in one transaction and returns the products whose
+     * delta the database rejected: rows deleted meanwhile, or ones a check constraint refuses
+     * because the row was changed behind the ledger's back. Those are recorded in
+     * inventory_ledger_rejects rather than holding back every other product's flush.
+     */
+    private Set<String> writeDeltas(Map<String, int[]> deltas, long lastSequence) throws SQLException {
+        try {
+            return writeDeltas(deltas, lastSequence, false);
+        } catch (SQLException e) {
+            if (!isConstraintViolation(e)) {
+                throw e;
+            }
+            logger.warn("Inventory flush rejected by a constraint, retrying product by product: {}",
+                    e.getMessage());
+            return writeDeltas(deltas, lastSequence, true);
+        }
+    }
+
+    // Batched by default; row by row under a savepoint each once a batch has been rejected
+    private Set<String> writeDeltas(Map<String, int[]> deltas, long lastSequence, boolean isolateRows)
+            throws SQLException {
+        String updateSql = "UPDATE products SET stock_quantity = stock_quantity + ?, " +
+                "reserved_quantity = reserved_quantity + ? WHERE product_id = ?";
+        String checkpointSql = "INSERT INTO inventory_ledger_checkpoint (node_id, last_sequence) " +
+                "VALUES (?, ?) ON CONFLICT (node_id) DO UPDATE " +
+                "SET last_sequence = EXCLUDED.last_sequence, updated_at = CURRENT_TIMESTAMP";
+        String rejectSql = "INSERT INTO inventory_ledger_rejects " +
+                "(node_id, product_id, stock_delta, reserved_delta, last_sequence, reason) VALUES (?, ?, ?, ?, ?, ?)";
+        // Product ID to the reason the database gave
+        Map<String, String> rejected = new TreeMap<>();
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement update = conn.prepareStatement(updateSql);
+                 PreparedStatement checkpoint = conn.prepareStatement(checkpointSql);
+                 PreparedStatement reject = conn.prepareStatement(rejectSql)) {
+
+                // Sorted for a stable row lock order
+                List<String> productIds = new ArrayList<>(new TreeSet<>(deltas.keySet()));
+                for (String productId : productIds) {
+                    update.setInt(1, deltas.get(productId)[0]);
+                    update.setInt(2, deltas.get(productId)[1]);
+                    update.setString(3, productId);
+                    if (!isolateRows) {
+                        update.addBatch();
+                        continue;
+                    }
+                    Savepoint savepoint = conn.setSavepoint();
+                    try {
+                        if (update.executeUpdate() == 0) {
+                            rejected.put(productId, "product not found");
+                        }
+                        conn.releaseSavepoint(savepoint);
+                    } catch (SQLException e) {
+                        if (!isConstraintViolation(e)) {
+                            throw e;
+                        }
+                        conn.rollback(savepoint);
+                        rejected.put(productId, rejectReason(e));
+                    }
+                }
+                if (!isolateRows) {
+                    int[] counts = update.executeBatch();
+                    for (int i = 0; i < counts.length; i++) {
+                        if (counts[i] == 0) {
+                            rejected.put(productIds.get(i), "product not found");
+                        }
+                    }
+                }
+
+                // Kept in the same transaction: the checkpoint only moves past a refused delta
+                // once it is on record
+                for (Map.Entry<String, String> refused : rejected.entrySet()) {
+                    int[] delta = deltas.get(refused.getKey());
+                    reject.setString(1, nodeId);
+                    reject.setString(2, refused.getKey());
+                    reject.setInt(3, delta[0]);
+                    reject.setInt(4, delta[1]);
+                    reject.setLong(5, lastSequence);
+                    reject.setString(6, refused.getValue());
+                    reject.addBatch();
+                }
+                if (!rejected.isEmpty()) {
+                    reject.executeBatch();
+                }
+
+                checkpoint.setString(1, nodeId);
+                checkpoint.setLong(2, lastSequence);
+                checkpoint.executeUpdate();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+
+        for (Map.Entry<String, String> refused : rejected.entrySet()) {
+            int[] delta = deltas.get(refused.getKey());
+            logger.error("Inventory delta stock {} reserved {} for product {} was refused ({}); "
+                    + "moved to inventory_ledger_rejects for reconciliation",
+                    delta[0], delta[1], refused.getKey(), refused.getValue());
+        }
+        rejectedDeltas.addAndGet(rejected.size());
+        return rejected.keySet();
+    }
+
+    // SQLState and the first line of the message; the detail line repeats the whole row
+    static String rejectReason(SQLException e) {
+        String message = String.valueOf(e.getMessage());
+        int end = message.indexOf('\n');
+        return e.getSQLState() + " " + (end < 0 ? message : message.substring(0, end));
+    }
+
+    // Class 23: integrity constraint violation; batches report it on a chained exception
+    static boolean isConstraintViolation(SQLException e) {
+        for (SQLException cause = e; cause != null; cause = cause.getNextException()) {
+            if (cause.getSQLState() != null && cause.getSQLState().startsWith("23")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
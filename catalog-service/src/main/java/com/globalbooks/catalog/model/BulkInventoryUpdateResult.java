@@ -0,0 +1,29 @@
+package com.globalbooks.catalog.model;
+
+import javax.xml.bind.annotation.*;
+import java.util.ArrayList;
+import java.util.List;
+
+@XmlRootElement(name = "BulkInventoryUpdateResult")
+@XmlType(propOrder = {"committed", "results"})
+@XmlAccessorType(XmlAccessType.FIELD)
+public class BulkInventoryUpdateResult {
+
+    // All lines are applied together or none are
+    @XmlElement(required = true)
+    private boolean committed;
+
+    // One entry per requested line, in request order
+    @XmlElement(name = "result")
+    private List<InventoryUpdateResult> results = new ArrayList<>();
+
+    // Default constructor
+    public BulkInventoryUpdateResult() {}
+
+    // Getters and Setters
+    public boolean isCommitted() { return committed; }
+    public void setCommitted(boolean committed) { this.committed = committed; }
+
+    public List<InventoryUpdateResult> getResults() { return results; }
+    public void setResults(List<InventoryUpdateResult> results) { this.results = results; }
+}
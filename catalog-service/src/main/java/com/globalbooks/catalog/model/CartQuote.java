@@ -0,0 +1,80 @@
+package com.globalbooks.catalog.model;
+
+import javax.xml.bind.annotation.*;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Priced cart: one PriceQuote per requested line, each discounted by its own quantity tier,
+ * plus the cart totals. The totals equal the sum of the lines, so a cart quote never disagrees
+ * with pricing the same lines one at a time through getProductPrice.
+ */
+@XmlRootElement(name = "CartQuote")
+@XmlType(propOrder = {"lines", "subtotal", "discount", "tax", "total", "currency", "validUntil"})
+@XmlAccessorType(XmlAccessType.FIELD)
+public class CartQuote {
+
+    @XmlElement(name = "line")
+    private List<PriceQuote> lines = new ArrayList<>();
+
+    @XmlElement(required = true)
+    private BigDecimal subtotal = BigDecimal.ZERO;
+
+    @XmlElement
+    private BigDecimal discount = BigDecimal.ZERO;
+
+    @XmlElement
+    private BigDecimal tax = BigDecimal.ZERO;
+
+    @XmlElement(required = true)
+    private BigDecimal total = BigDecimal.ZERO;
+
+    // Shared by every line; a cart never mixes currencies
+    @XmlElement(required = true)
+    private String currency;
+
+    @XmlElement(required = true)
+    @XmlSchemaType(name = "dateTime")
+    private Date validUntil;
+
+    // Default constructor
+    public CartQuote() {}
+
+    // Calculation constructor
+    public CartQuote(String currency, Date validUntil) {
+        this.currency = currency;
+        this.validUntil = validUntil;
+    }
+
+    public void addLine(PriceQuote line) {
+        lines.add(line);
+        subtotal = subtotal.add(line.getSubtotal());
+        discount = discount.add(line.getDiscount());
+        tax = tax.add(line.getTax());
+        total = total.add(line.getTotal());
+    }
+
+    // Getters and Setters
+    public List<PriceQuote> getLines() { return lines; }
+    public void setLines(List<PriceQuote> lines) { this.lines = lines; }
+
+    public BigDecimal getSubtotal() { return subtotal; }
+    public void setSubtotal(BigDecimal subtotal) { this.subtotal = subtotal; }
+
+    public BigDecimal getDiscount() { return discount; }
+    public void setDiscount(BigDecimal discount) { this.discount = discount; }
+
+    public BigDecimal getTax() { return tax; }
+    public void setTax(BigDecimal tax) { this.tax = tax; }
+
+    public BigDecimal getTotal() { return total; }
+    public void setTotal(BigDecimal total) { this.total = total; }
+
+    public String getCurrency() { return currency; }
+    public void setCurrency(String currency) { this.currency = currency; }
+
+    public Date getValidUntil() { return validUntil; }
+    public void setValidUntil(Date validUntil) { this.validUntil = validUntil; }
+}
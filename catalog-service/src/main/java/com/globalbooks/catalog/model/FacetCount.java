@@ -0,0 +1,51 @@
+package com.globalbooks.catalog.model;
+
+import javax.xml.bind.annotation.*;
+import java.math.BigDecimal;
+
+/**
+ * Number of matching products with one facet value: a category, or a price band.
+ */
+@XmlRootElement(name = "FacetCount")
+@XmlType(propOrder = {"value", "count", "minPrice", "maxPrice"})
+@XmlAccessorType(XmlAccessType.FIELD)
+public class FacetCount {
+
+    // Category name, or a price band label such as "10-25" or "100+"
+    @XmlElement(required = true)
+    private String value;
+
+    @XmlElement(required = true)
+    private int count;
+
+    // Price bands only: the band covers minPrice <= price < maxPrice; the top band has no maxPrice
+    @XmlElement
+    private BigDecimal minPrice;
+
+    @XmlElement
+    private BigDecimal maxPrice;
+
+    // Default constructor
+    public FacetCount() {}
+
+    // Full constructor
+    public FacetCount(String value, int count, BigDecimal minPrice, BigDecimal maxPrice) {
+        this.value = value;
+        this.count = count;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+    }
+
+    // Getters and Setters
+    public String getValue() { return value; }
+    public void setValue(String value) { this.value = value; }
+
+    public int getCount() { return count; }
+    public void setCount(int count) { this.count = count; }
+
+    public BigDecimal getMinPrice() { return minPrice; }
+    public void setMinPrice(BigDecimal minPrice) { this.minPrice = minPrice; }
+
+    public BigDecimal getMaxPrice() { return maxPrice; }
+    public void setMaxPrice(BigDecimal maxPrice) { this.maxPrice = maxPrice; }
+}
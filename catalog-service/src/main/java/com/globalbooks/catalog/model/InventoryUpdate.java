@@ -0,0 +1,39 @@
+package com.globalbooks.catalog.model;
+
+import javax.xml.bind.annotation.*;
+
+@XmlRootElement(name = "InventoryUpdate")
+@XmlType(propOrder = {"productId", "quantity", "operation"})
+@XmlAccessorType(XmlAccessType.FIELD)
+public class InventoryUpdate {
+
+    @XmlElement(required = true)
+    private String productId;
+
+    @XmlElement(required = true)
+    private int quantity;
+
+    // RESERVE, RELEASE or DEDUCT
+    @XmlElement(required = true)
+    private String operation;
+
+    // Default constructor
+    public InventoryUpdate() {}
+
+    // Full constructor
+    public InventoryUpdate(String productId, int quantity, String operation) {
+        this.productId = productId;
+        this.quantity = quantity;
+        this.operation = operation;
+    }
+
+    // Getters and Setters
+    public String getProductId() { return productId; }
+    public void setProductId(String productId) { this.productId = productId; }
+
+    public int getQuantity() { return quantity; }
+    public void setQuantity(int quantity) { this.quantity = quantity; }
+
+    public String getOperation() { return operation; }
+    public void setOperation(String operation) { this.operation = operation; }
+}
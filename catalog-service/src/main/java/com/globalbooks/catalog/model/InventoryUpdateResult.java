@@ -0,0 +1,52 @@
+package com.globalbooks.catalog.model;
+
+import javax.xml.bind.annotation.*;
+
+@XmlRootElement(name = "InventoryUpdateResult")
+@XmlType(propOrder = {"productId", "quantity", "operation", "success", "message"})
+@XmlAccessorType(XmlAccessType.FIELD)
+public class InventoryUpdateResult {
+
+    @XmlElement(required = true)
+    private String productId;
+
+    @XmlElement(required = true)
+    private int quantity;
+
+    @XmlElement(required = true)
+    private String operation;
+
+    @XmlElement(required = true)
+    private boolean success;
+
+    @XmlElement
+    private String message;
+
+    // Default constructor
+    public InventoryUpdateResult() {}
+
+    // Full constructor
+    public InventoryUpdateResult(InventoryUpdate update, boolean success, String message) {
+        this.productId = update.getProductId();
+        this.quantity = update.getQuantity();
+        this.operation = update.getOperation();
+        this.success = success;
+        this.message = message;
+    }
+
+    // Getters and Setters
+    public String getProductId() { return productId; }
+    public void setProductId(String productId) { this.productId = productId; }
+
+    public int getQuantity() { return quantity; }
+    public void setQuantity(int quantity) { this.quantity = quantity; }
+
+    public String getOperation() { return operation; }
+    public void setOperation(String operation) { this.operation = operation; }
+
+    public boolean isSuccess() { return success; }
+    public void setSuccess(boolean success) { this.success = success; }
+
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+}
@@ -8,6 +8,13 @@ import java.util.Date;
 @XmlAccessorType(XmlAccessType.FIELD)
 public class PriceQuote {
 
+    // Bulk discount tiers, highest threshold first
+    private static final int[] DISCOUNT_THRESHOLDS = {100, 50, 10};
+    private static final BigDecimal[] DISCOUNT_RATES = {
+            BigDecimal.valueOf(0.15), BigDecimal.valueOf(0.10), BigDecimal.valueOf(0.05)};
+    private static final BigDecimal TAX_RATE = BigDecimal.valueOf(0.08);
+    public static final long VALIDITY_MILLIS = 7 * 24 * 60 * 60 * 1000L;
+
     @XmlElement(required = true)
     private String productId;
 
@@ -41,32 +48,34 @@ public class PriceQuote {
 
     // Calculation constructor
     public PriceQuote(String productId, BigDecimal unitPrice, int quantity) {
+        // Quote valid for 7 days
+        this(productId, unitPrice, quantity, new Date(System.currentTimeMillis() + VALIDITY_MILLIS));
+    }
+
+    // Cart constructor: every line of a cart shares one expiry
+    public PriceQuote(String productId, BigDecimal unitPrice, int quantity, Date validUntil) {
         this.productId = productId;
         this.unitPrice = unitPrice;
         this.quantity = quantity;
+        this.validUntil = validUntil;
         calculateTotals();
     }
 
     private void calculateTotals() {
         this.subtotal = unitPrice.multiply(BigDecimal.valueOf(quantity));
 
-        // Apply discount for bulk orders
-        if (quantity >= 100) {
-            this.discount = subtotal.multiply(BigDecimal.valueOf(0.15)); // 15% discount
-        } else if (quantity >= 50) {
-            this.discount = subtotal.multiply(BigDecimal.valueOf(0.10)); // 10% discount
-        } else if (quantity >= 10) {
-            this.discount = subtotal.multiply(BigDecimal.valueOf(0.05)); // 5% discount
-        } else {
-            this.discount = BigDecimal.ZERO;
+        // Apply discount for bulk orders: 15% from 100, 10% from 50, 5% from 10
+        this.discount = BigDecimal.ZERO;
+        for (int i = 0; i < DISCOUNT_THRESHOLDS.length; i++) {
+            if (quantity >= DISCOUNT_THRESHOLDS[i]) {
+                this.discount = subtotal.multiply(DISCOUNT_RATES[i]);
+                break;
+            }
         }
 
         BigDecimal afterDiscount = subtotal.subtract(discount);
-        this.tax = afterDiscount.multiply(BigDecimal.valueOf(0.08)); // 8% tax
+        this.tax = afterDiscount.multiply(TAX_RATE); // 8% tax
         this.total = afterDiscount.add(tax);
-
-        // Quote valid for 7 days
-        this.validUntil = new Date(System.currentTimeMillis() + (7 * 24 * 60 * 60 * 1000));
     }
 
     // Getters and Setters
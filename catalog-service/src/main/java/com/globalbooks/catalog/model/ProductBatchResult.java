@@ -0,0 +1,33 @@
+package com.globalbooks.catalog.model;
+
+import javax.xml.bind.annotation.*;
+import java.util.ArrayList;
+import java.util.List;
+
+@XmlRootElement(name = "ProductBatchResult")
+@XmlType(propOrder = {"products", "missingProductIds"})
+@XmlAccessorType(XmlAccessType.FIELD)
+public class ProductBatchResult {
+
+    @XmlElement(name = "product")
+    private List<Product> products = new ArrayList<>();
+
+    @XmlElement(name = "missingProductId")
+    private List<String> missingProductIds = new ArrayList<>();
+
+    // Default constructor
+    public ProductBatchResult() {}
+
+    // Full constructor
+    public ProductBatchResult(List<Product> products, List<String> missingProductIds) {
+        this.products = products;
+        this.missingProductIds = missingProductIds;
+    }
+
+    // Getters and Setters
+    public List<Product> getProducts() { return products; }
+    public void setProducts(List<Product> products) { this.products = products; }
+
+    public List<String> getMissingProductIds() { return missingProductIds; }
+    public void setMissingProductIds(List<String> missingProductIds) { this.missingProductIds = missingProductIds; }
+}
@@ -0,0 +1,41 @@
+package com.globalbooks.catalog.model;
+
+import javax.xml.bind.annotation.*;
+import java.util.ArrayList;
+import java.util.List;
+
+@XmlRootElement(name = "ProductPage")
+@XmlType(propOrder = {"products", "summaries", "continuationToken"})
+@XmlAccessorType(XmlAccessType.FIELD)
+public class ProductPage {
+
+    @XmlElement(name = "product")
+    private List<Product> products = new ArrayList<>();
+
+    // Filled instead of products when the search asked for summaryOnly
+    @XmlElement(name = "summary")
+    private List<ProductSummary> summaries = new ArrayList<>();
+
+    // Absent on the last page; pass it back in SearchCriteria to fetch the next one
+    @XmlElement
+    private String continuationToken;
+
+    // Default constructor
+    public ProductPage() {}
+
+    // Full constructor
+    public ProductPage(List<Product> products, String continuationToken) {
+        this.products = products;
+        this.continuationToken = continuationToken;
+    }
+
+    // Getters and Setters
+    public List<Product> getProducts() { return products; }
+    public void setProducts(List<Product> products) { this.products = products; }
+
+    public List<ProductSummary> getSummaries() { return summaries; }
+    public void setSummaries(List<ProductSummary> summaries) { this.summaries = summaries; }
+
+    public String getContinuationToken() { return continuationToken; }
+    public void setContinuationToken(String continuationToken) { this.continuationToken = continuationToken; }
+}
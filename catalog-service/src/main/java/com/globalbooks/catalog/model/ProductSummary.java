@@ -0,0 +1,54 @@
+package com.globalbooks.catalog.model;
+
+import javax.xml.bind.annotation.*;
+import java.math.BigDecimal;
+
+/**
+ * Listing view of a product: only the columns a result list displays,
+ * without the description and other detail fields.
+ */
+@XmlRootElement(name = "ProductSummary")
+@XmlType(propOrder = {"productId", "title", "author", "price", "currency", "stockQuantity"})
+@XmlAccessorType(XmlAccessType.FIELD)
+public class ProductSummary {
+
+    @XmlElement(required = true)
+    private String productId;
+
+    @XmlElement(required = true)
+    private String title;
+
+    @XmlElement(required = true)
+    private String author;
+
+    @XmlElement(required = true)
+    private BigDecimal price;
+
+    @XmlElement(defaultValue = "USD")
+    private String currency = "USD";
+
+    @XmlElement(required = true)
+    private int stockQuantity;
+
+    // Default constructor
+    public ProductSummary() {}
+
+    // Getters and Setters
+    public String getProductId() { return productId; }
+    public void setProductId(String productId) { this.productId = productId; }
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public String getAuthor() { return author; }
+    public void setAuthor(String author) { this.author = author; }
+
+    public BigDecimal getPrice() { return price; }
+    public void setPrice(BigDecimal price) { this.price = price; }
+
+    public String getCurrency() { return currency; }
+    public void setCurrency(String currency) { this.currency = currency; }
+
+    public int getStockQuantity() { return stockQuantity; }
+    public void setStockQuantity(int stockQuantity) { this.stockQuantity = stockQuantity; }
+}
@@ -2,6 +2,9 @@ package com.globalbooks.catalog.model;
 
 import javax.xml.bind.annotation.*;
 import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @XmlRootElement(name = "SearchCriteria")
 @XmlAccessorType(XmlAccessType.FIELD)
@@ -25,9 +28,27 @@ public class SearchCriteria {
     @XmlElement(defaultValue = "false")
     private boolean inStockOnly = false;
 
+    // Largest page a caller may ask for
+    public static final int MAX_RESULTS_LIMIT = 1000;
+
     @XmlElement(defaultValue = "100")
     private int maxResults = 100;
 
+    @XmlElement
+    private String continuationToken;
+
+    // Return only listing columns (title, author, price, stock) instead of full products
+    @XmlElement(defaultValue = "false")
+    private boolean summaryOnly = false;
+
+    // Also match catalog words a small number of typos away from each keyword word
+    @XmlElement(defaultValue = "false")
+    private boolean fuzzy = false;
+
+    // Filled in by the service for fuzzy searches: keyword word -> catalog words to accept for it
+    @XmlTransient
+    private Map<String, List<String>> keywordAlternatives = new LinkedHashMap<>();
+
     // Default constructor
     public SearchCriteria() {}
 
@@ -52,4 +73,16 @@ public class SearchCriteria {
 
     public int getMaxResults() { return maxResults; }
     public void setMaxResults(int maxResults) { this.maxResults = maxResults; }
+
+    public String getContinuationToken() { return continuationToken; }
+    public void setContinuationToken(String continuationToken) { this.continuationToken = continuationToken; }
+
+    public boolean isSummaryOnly() { return summaryOnly; }
+    public void setSummaryOnly(boolean summaryOnly) { this.summaryOnly = summaryOnly; }
+
+    public boolean isFuzzy() { return fuzzy; }
+    public void setFuzzy(boolean fuzzy) { this.fuzzy = fuzzy; }
+
+    public Map<String, List<String>> getKeywordAlternatives() { return keywordAlternatives; }
+    public void setKeywordAlternatives(Map<String, List<String>> keywordAlternatives) { this.keywordAlternatives = keywordAlternatives; }
 }
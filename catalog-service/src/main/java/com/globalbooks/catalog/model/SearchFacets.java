@@ -0,0 +1,49 @@
+package com.globalbooks.catalog.model;
+
+import javax.xml.bind.annotation.*;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Facet counts for a search. Category counts ignore the search's own category filter and
+ * price band counts ignore its price range, so they show what each refinement would return.
+ */
+@XmlRootElement(name = "SearchFacets")
+@XmlType(propOrder = {"totalMatches", "categories", "priceBands", "asOf"})
+@XmlAccessorType(XmlAccessType.FIELD)
+public class SearchFacets {
+
+    // Products matching every filter of the search
+    @XmlElement(required = true)
+    private int totalMatches;
+
+    // Non-empty categories, largest first
+    @XmlElement(name = "category")
+    private List<FacetCount> categories = new ArrayList<>();
+
+    // Every configured band, cheapest first
+    @XmlElement(name = "priceBand")
+    private List<FacetCount> priceBands = new ArrayList<>();
+
+    // When the counted catalog snapshot was taken; stock and prices may have moved since
+    @XmlElement(required = true)
+    @XmlSchemaType(name = "dateTime")
+    private Date asOf;
+
+    // Default constructor
+    public SearchFacets() {}
+
+    // Getters and Setters
+    public int getTotalMatches() { return totalMatches; }
+    public void setTotalMatches(int totalMatches) { this.totalMatches = totalMatches; }
+
+    public List<FacetCount> getCategories() { return categories; }
+    public void setCategories(List<FacetCount> categories) { this.categories = categories; }
+
+    public List<FacetCount> getPriceBands() { return priceBands; }
+    public void setPriceBands(List<FacetCount> priceBands) { this.priceBands = priceBands; }
+
+    public Date getAsOf() { return asOf; }
+    public void setAsOf(Date asOf) { this.asOf = asOf; }
+}
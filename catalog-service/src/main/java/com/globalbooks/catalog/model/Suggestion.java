@@ -0,0 +1,43 @@
+package com.globalbooks.catalog.model;
+
+import javax.xml.bind.annotation.*;
+
+/**
+ * One autocomplete match: the title, author or ISBN that matched the typed prefix and
+ * the product it belongs to.
+ */
+@XmlRootElement(name = "Suggestion")
+@XmlType(propOrder = {"productId", "text", "field"})
+@XmlAccessorType(XmlAccessType.FIELD)
+public class Suggestion {
+
+    @XmlElement(required = true)
+    private String productId;
+
+    @XmlElement(required = true)
+    private String text;
+
+    // TITLE, AUTHOR or ISBN
+    @XmlElement(required = true)
+    private String field;
+
+    // Default constructor
+    public Suggestion() {}
+
+    // Full constructor
+    public Suggestion(String productId, String text, String field) {
+        this.productId = productId;
+        this.text = text;
+        this.field = field;
+    }
+
+    // Getters and Setters
+    public String getProductId() { return productId; }
+    public void setProductId(String productId) { this.productId = productId; }
+
+    public String getText() { return text; }
+    public void setText(String text) { this.text = text; }
+
+    public String getField() { return field; }
+    public void setField(String field) { this.field = field; }
+}
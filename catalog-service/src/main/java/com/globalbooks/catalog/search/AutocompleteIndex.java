@@ -0,0 +1,475 @@
+package com.globalbooks.catalog.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory prefix index over product titles, authors and ISBNs.
+ *
+ * Keys live in a radix trie (edges carry whole label runs, not single characters). Titles
+ * and authors are indexed from the start of each word, so "prag" finds "The Pragmatic
+ * Programmer"; ISBNs are indexed as bare digits. Every node keeps the best K entries of its
+ * subtree (a leaf just shares its own ranked entries), so a lookup costs the length of the
+ * prefix plus K, independent of catalog size.
+ *
+ * Entries rank by score (stock on hand), then text. Writers take an exclusive lock and
+ * repair the best-K lists along the paths they touch; readers share a read lock.
+ */
+public final class AutocompleteIndex {
+
+    public enum Field { TITLE, AUTHOR, ISBN }
+
+    public static final class Entry {
+        private final String productId;
+        private final String text;
+        private final Field field;
+        private final int score;
+
+        public Entry(String productId, String text, Field field, int score) {
+            this.productId = productId;
+            this.text = text;
+            this.field = field;
+            this.score = score;
+        }
+
+        public String getProductId() { return productId; }
+        public String getText() { return text; }
+        public Field getField() { return field; }
+        public int getScore() { return score; }
+    }
+
+    private static final Comparator<Entry> RANKING = (a, b) -> {
+        if (a.score != b.score) {
+            return a.score > b.score ? -1 : 1;
+        }
+        int order = a.text.compareTo(b.text);
+        if (order == 0) {
+            order = a.productId.compareTo(b.productId);
+        }
+        return order != 0 ? order : a.field.compareTo(b.field);
+    };
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern ISBN_QUERY = Pattern.compile("[0-9x ]+");
+    private static final int MAX_WORD_STARTS = 8;
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+
+    private final int topK;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Node root = new Node(new char[0]);
+    private Map<String, Entry[]> entriesByProduct = new HashMap<>();
+
+    public AutocompleteIndex(int topK) {
+        this.topK = topK;
+    }
+
+    public int getTopK() {
+        return topK;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entriesByProduct.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Best matches for the prefix, at most min(limit, K).
+     */
+    public List<Entry> lookup(String prefix, int limit) {
+        String key = normalizeQuery(prefix);
+        if (key.isEmpty()) {
+            return new ArrayList<>();
+        }
+        int max = Math.min(limit, topK);
+
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            int matched = 0;
+            while (matched < key.length()) {
+                Node child = node.child(key.charAt(matched));
+                if (child == null) {
+                    return new ArrayList<>();
+                }
+                char[] label = child.label;
+                int i = 0;
+                while (i < label.length && matched < key.length()) {
+                    if (label[i] != key.charAt(matched)) {
+                        return new ArrayList<>();
+                    }
+                    i++;
+                    matched++;
+                }
+                node = child;
+            }
+            Entry[] best = node.top;
+            return new ArrayList<>(Arrays.asList(best).subList(0, Math.min(max, best.length)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the whole index; the trie is built off to the side and swapped in.
+     */
+    public void rebuild(Iterable<Entry[]> products) {
+        Node newRoot = new Node(new char[0]);
+        Map<String, Entry[]> newEntries = new HashMap<>();
+        for (Entry[] entries : products) {
+            if (entries.length == 0) {
+                continue;
+            }
+            newEntries.put(entries[0].productId, entries);
+            for (Entry entry : entries) {
+                for (String key : keysOf(entry)) {
+                    insert(newRoot, key, entry, null);
+                }
+            }
+        }
+        computeTop(newRoot);
+
+        lock.writeLock().lock();
+        try {
+            root = newRoot;
+            entriesByProduct = newEntries;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces one product's entries; an empty array removes the product.
+     */
+    public void update(String productId, Entry[] entries) {
+        lock.writeLock().lock();
+        try {
+            Entry[] previous = entriesByProduct.get(productId);
+            if (previous != null && sameEntries(previous, entries)) {
+                return;
+            }
+            entriesByProduct.remove(productId);
+            if (previous != null) {
+                for (Entry entry : previous) {
+                    for (String key : keysOf(entry)) {
+                        remove(key, entry);
+                    }
+                }
+            }
+            if (entries.length > 0) {
+                entriesByProduct.put(productId, entries);
+                for (Entry entry : entries) {
+                    for (String key : keysOf(entry)) {
+                        List<Node> path = new ArrayList<>();
+                        insert(root, key, entry, path);
+                        refreshPath(path);
+                    }
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Path, when given, collects every node from the root to the key's node
+    private static void insert(Node root, String key, Entry entry, List<Node> path) {
+        Node node = root;
+        if (path != null) {
+            path.add(node);
+        }
+        int matched = 0;
+        while (matched < key.length()) {
+            Node child = node.child(key.charAt(matched));
+            if (child == null) {
+                child = new Node(key.substring(matched).toCharArray());
+                node.addChild(child);
+                matched = key.length();
+            } else {
+                int common = 0;
+                char[] label = child.label;
+                while (common < label.length && matched + common < key.length()
+                        && label[common] == key.charAt(matched + common)) {
+                    common++;
+                }
+                if (common < label.length) {
+                    child = node.split(child, common);
+                }
+                matched += common;
+            }
+            node = child;
+            if (path != null) {
+                path.add(node);
+            }
+        }
+        // Kept ranked during updates; a rebuild appends and sorts once in computeTop
+        node.terminals = path != null ? insertRanked(node.terminals, entry) : append(node.terminals, entry);
+    }
+
+    private void remove(String key, Entry entry) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int matched = 0;
+        while (matched < key.length()) {
+            node = node.child(key.charAt(matched));
+            if (node == null) {
+                return;
+            }
+            matched += node.label.length;
+            path.add(node);
+        }
+        Node leaf = path.get(path.size() - 1);
+        int index = Arrays.binarySearch(leaf.terminals, entry, RANKING);
+        if (index < 0 || leaf.terminals[index] != entry) {
+            return;
+        }
+        leaf.terminals = without(leaf.terminals, index);
+
+        while (path.size() > 1 && path.get(path.size() - 1).isEmpty()) {
+            Node empty = path.remove(path.size() - 1);
+            path.get(path.size() - 1).removeChild(empty);
+        }
+        refreshPath(path);
+    }
+
+    // Bottom-up; once a node's best-K list comes out unchanged its ancestors are unaffected
+    private void refreshPath(List<Node> path) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            if (!refreshTop(path.get(i))) {
+                return;
+            }
+        }
+    }
+
+    private void computeTop(Node node) {
+        for (Node child : node.children) {
+            computeTop(child);
+        }
+        Arrays.sort(node.terminals, RANKING);
+        refreshTop(node);
+    }
+
+    // Children's lists are already up to date. Returns false when the list is unchanged.
+    private boolean refreshTop(Node node) {
+        Entry[] previous = node.top;
+        if (node.children.length == 0) {
+            node.top = node.terminals.length <= topK ? node.terminals : Arrays.copyOf(node.terminals, topK);
+        } else {
+            List<Entry[]> ranked = new ArrayList<>(node.children.length + 1);
+            ranked.add(node.terminals);
+            for (Node child : node.children) {
+                ranked.add(child.top);
+            }
+            node.top = best(ranked);
+        }
+        return !Arrays.equals(previous, node.top);
+    }
+
+    // Merges ranked lists until K distinct entries are taken; one entry can be reachable
+    // through several word starts under the same prefix
+    private Entry[] best(List<Entry[]> rankedLists) {
+        int[] heads = new int[rankedLists.size()];
+        Entry[] best = new Entry[topK];
+        int count = 0;
+        while (count < topK) {
+            int winner = -1;
+            Entry winning = null;
+            for (int i = 0; i < heads.length; i++) {
+                Entry[] list = rankedLists.get(i);
+                if (heads[i] < list.length && (winning == null || RANKING.compare(list[heads[i]], winning) < 0)) {
+                    winner = i;
+                    winning = list[heads[i]];
+                }
+            }
+            if (winner < 0) {
+                break;
+            }
+            heads[winner]++;
+            if (!contains(best, count, winning)) {
+                best[count++] = winning;
+            }
+        }
+        return count == topK ? best : Arrays.copyOf(best, count);
+    }
+
+    private static boolean contains(Entry[] entries, int length, Entry entry) {
+        for (int i = 0; i < length; i++) {
+            if (entries[i] == entry) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static Set<String> keysOf(Entry entry) {
+        Set<String> keys = new LinkedHashSet<>();
+        if (entry.field == Field.ISBN) {
+            String digits = entry.text.replaceAll("[^0-9Xx]", "").toLowerCase();
+            if (!digits.isEmpty()) {
+                keys.add(digits);
+            }
+            return keys;
+        }
+        String normalized = normalize(entry.text);
+        if (normalized.isEmpty()) {
+            return keys;
+        }
+        keys.add(normalized);
+        int start = 0;
+        for (int words = 1; words < MAX_WORD_STARTS; words++) {
+            int space = normalized.indexOf(' ', start);
+            if (space < 0) {
+                break;
+            }
+            start = space + 1;
+            keys.add(normalized.substring(start));
+        }
+        return keys;
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        String stripped = MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+        return NON_WORD.matcher(stripped).replaceAll(" ").trim();
+    }
+
+    // "978-0-13" and "978 013" both mean the ISBN digits 978013
+    static String normalizeQuery(String prefix) {
+        String normalized = normalize(prefix);
+        if (ISBN_QUERY.matcher(normalized).matches() && normalized.indexOf(' ') > 0
+                && Character.isDigit(normalized.charAt(0))) {
+            return normalized.replace(" ", "");
+        }
+        return normalized;
+    }
+
+    private static boolean sameEntries(Entry[] a, Entry[] b) {
+        if (a.length != b.length) {
+            return false;
+        }
+        for (int i = 0; i < a.length; i++) {
+            if (a[i].score != b[i].score || a[i].field != b[i].field || !a[i].text.equals(b[i].text)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Entry[] append(Entry[] entries, Entry entry) {
+        Entry[] grown = Arrays.copyOf(entries, entries.length + 1);
+        grown[entries.length] = entry;
+        return grown;
+    }
+
+    private static Entry[] without(Entry[] entries, int index) {
+        if (entries.length == 1) {
+            return NO_ENTRIES;
+        }
+        Entry[] shrunk = new Entry[entries.length - 1];
+        System.arraycopy(entries, 0, shrunk, 0, index);
+        System.arraycopy(entries, index + 1, shrunk, index, entries.length - index - 1);
+        return shrunk;
+    }
+
+    private static Entry[] insertRanked(Entry[] entries, Entry entry) {
+        int position = Arrays.binarySearch(entries, entry, RANKING);
+        if (position < 0) {
+            position = -position - 1;
+        }
+        Entry[] grown = new Entry[entries.length + 1];
+        System.arraycopy(entries, 0, grown, 0, position);
+        grown[position] = entry;
+        System.arraycopy(entries, position, grown, position + 1, entries.length - position);
+        return grown;
+    }
+
+    private static final class Node {
+        private char[] label;
+        private Node[] children = NO_CHILDREN;
+        private Entry[] terminals = NO_ENTRIES;
+        private Entry[] top = NO_ENTRIES;
+
+        private Node(char[] label) {
+            this.label = label;
+        }
+
+        // Children are kept sorted by their first character
+        private Node child(char first) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char c = children[mid].label[0];
+                if (c < first) {
+                    low = mid + 1;
+                } else if (c > first) {
+                    high = mid - 1;
+                } else {
+                    return children[mid];
+                }
+            }
+            return null;
+        }
+
+        private boolean isEmpty() {
+            return terminals.length == 0 && children.length == 0;
+        }
+
+        private void addChild(Node child) {
+            int position = 0;
+            while (position < children.length && children[position].label[0] < child.label[0]) {
+                position++;
+            }
+            Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, position);
+            grown[position] = child;
+            System.arraycopy(children, position, grown, position + 1, children.length - position);
+            children = grown;
+        }
+
+        private void removeChild(Node child) {
+            for (int i = 0; i < children.length; i++) {
+                if (children[i] == child) {
+                    Node[] shrunk = new Node[children.length - 1];
+                    System.arraycopy(children, 0, shrunk, 0, i);
+                    System.arraycopy(children, i + 1, shrunk, i, children.length - i - 1);
+                    children = shrunk;
+                    return;
+                }
+            }
+        }
+
+        // Cuts the child's label after `at` characters, inserting the head as a new node
+        private Node split(Node child, int at) {
+            Node head = new Node(Arrays.copyOf(child.label, at));
+            child.label = Arrays.copyOfRange(child.label, at, child.label.length);
+            head.children = new Node[] {child};
+            head.top = child.top;
+            for (int i = 0; i < children.length; i++) {
+                if (children[i] == child) {
+                    children[i] = head;
+                }
+            }
+            return head;
+        }
+    }
+}
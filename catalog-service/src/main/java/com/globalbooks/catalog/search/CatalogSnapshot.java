@@ -0,0 +1,469 @@
+package com.globalbooks.catalog.search;
+
+import com.globalbooks.catalog.model.Product;
+import com.globalbooks.catalog.model.SearchCriteria;
+import com.globalbooks.catalog.util.DatabaseConnection;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Column-oriented copy of the fields searches filter and facet on. One row per product in
+ * (title, product_id) order, compared as {@link #compareText} does, so a filter's matching
+ * rows are already in page order.
+ *
+ * Each category, each price band and "in stock" is a bitmap of 64-bit words over the rows.
+ * Filters AND those bitmaps together, going to the price column only for bands a price
+ * range cuts through; facet counts are popcounts of the filter ANDed with each bitmap.
+ *
+ * Stock, price and category changes are patched in place; anything that would move a row
+ * (new product, renamed title, deletion, unseen category) needs a fresh {@link #load}.
+ */
+final class CatalogSnapshot {
+
+    private static final String SQL = "SELECT product_id, title, category, price, stock_quantity FROM products";
+
+    private final String[] productIds;
+    private final String[] titles;
+    // Row numbers sorted by product ID, for mapping IDs back to rows
+    private final int[] rowsByProductId;
+
+    private final String[] categoryNames;
+    private final Map<String, Integer> categoryOrdinals;
+    private final int[] categories;
+    private final long[] priceCents;
+    private final int[] stock;
+
+    // Upper bound (exclusive, in cents) of every band but the last, which is open-ended
+    private final long[] bandLimits;
+
+    private final long[][] categoryRows;
+    private final long[][] bandRows;
+    private final long[] inStockRows;
+    // Every row set; the starting point of each filter
+    private final long[] allRows;
+
+    private final long loadedAt;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private CatalogSnapshot(List<Row> rows, long[] bandLimits) {
+        rows.sort((a, b) -> {
+            int order = compareText(a.title, b.title);
+            return order != 0 ? order : compareText(a.productId, b.productId);
+        });
+        int size = rows.size();
+        int words = (size + 63) >>> 6;
+        this.productIds = new String[size];
+        this.titles = new String[size];
+        this.categories = new int[size];
+        this.priceCents = new long[size];
+        this.stock = new int[size];
+        this.bandLimits = bandLimits;
+        this.categoryOrdinals = new HashMap<>();
+        this.bandRows = new long[bandLimits.length + 1][words];
+        this.inStockRows = new long[words];
+        this.allRows = new long[words];
+
+        List<String> names = new ArrayList<>();
+        for (int row = 0; row < size; row++) {
+            Row source = rows.get(row);
+            productIds[row] = source.productId;
+            titles[row] = source.title;
+            Integer ordinal = categoryOrdinals.get(categoryKey(source.category));
+            if (ordinal == null) {
+                ordinal = names.size();
+                categoryOrdinals.put(categoryKey(source.category), ordinal);
+                names.add(source.category);
+            }
+            categories[row] = ordinal;
+            priceCents[row] = source.priceCents;
+            stock[row] = source.stock;
+        }
+        this.categoryNames = names.toArray(new String[0]);
+        this.categoryRows = new long[categoryNames.length][words];
+        for (int row = 0; row < size; row++) {
+            set(allRows, row);
+            index(row);
+        }
+
+        Integer[] byId = new Integer[size];
+        for (int row = 0; row < size; row++) {
+            byId[row] = row;
+        }
+        Arrays.sort(byId, (a, b) -> productIds[a].compareTo(productIds[b]));
+        this.rowsByProductId = new int[size];
+        for (int i = 0; i < size; i++) {
+            rowsByProductId[i] = byId[i];
+        }
+        this.loadedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Reads the filter columns of every product.
+     */
+    static CatalogSnapshot load(long[] bandLimits, int fetchSize) throws SQLException {
+        List<Row> rows = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getReadConnection()) {
+            // Server-side cursor, as in ProductDAOImpl.streamAll
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(SQL)) {
+                stmt.setFetchSize(fetchSize);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        rows.add(new Row(rs.getString("product_id"), rs.getString("title"),
+                                rs.getString("category"), cents(rs.getBigDecimal("price")),
+                                rs.getInt("stock_quantity")));
+                    }
+                }
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+        return new CatalogSnapshot(rows, bandLimits);
+    }
+
+    /**
+     * Builds a snapshot from products already in memory.
+     */
+    static CatalogSnapshot of(Collection<Product> products, long[] bandLimits) {
+        List<Row> rows = new ArrayList<>();
+        for (Product product : products) {
+            rows.add(new Row(product.getProductId(), product.getTitle(), product.getCategory(),
+                    cents(product.getPrice()), product.getStockQuantity()));
+        }
+        return new CatalogSnapshot(rows, bandLimits);
+    }
+
+    int size() {
+        return productIds.length;
+    }
+
+    long getLoadedAt() {
+        return loadedAt;
+    }
+
+    String getProductId(int row) {
+        return productIds[row];
+    }
+
+    String getTitle(int row) {
+        return titles[row];
+    }
+
+    String getCategoryName(int ordinal) {
+        return categoryNames[ordinal];
+    }
+
+    long[] getBandLimits() {
+        return bandLimits;
+    }
+
+    /**
+     * Rows holding any of the given products, as a bitmap.
+     */
+    long[] rowsOf(Collection<String> ids) {
+        long[] rows = new long[allRows.length];
+        for (String productId : ids) {
+            int row = rowOf(productId);
+            if (row >= 0) {
+                set(rows, row);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Rows passing the criteria's category, price and stock filters, further limited to
+     * textMatches when given. Category or price can be left out for disjunctive facet counts.
+     */
+    long[] filter(SearchCriteria criteria, long[] textMatches, boolean byCategory, boolean byPrice) {
+        lock.readLock().lock();
+        try {
+            long[] rows = allRows.clone();
+            if (byCategory && criteria.getCategory() != null && !criteria.getCategory().isEmpty()) {
+                Integer ordinal = categoryOrdinals.get(categoryKey(criteria.getCategory()));
+                if (ordinal == null) {
+                    return new long[rows.length];
+                }
+                and(rows, categoryRows[ordinal]);
+            }
+            if (criteria.isInStockOnly()) {
+                and(rows, inStockRows);
+            }
+            if (textMatches != null) {
+                and(rows, textMatches);
+            }
+            if (byPrice && (criteria.getMinPrice() != null || criteria.getMaxPrice() != null)) {
+                long min = criteria.getMinPrice() != null
+                        ? criteria.getMinPrice().movePointRight(2).setScale(0, RoundingMode.CEILING).longValue()
+                        : Long.MIN_VALUE;
+                long max = criteria.getMaxPrice() != null
+                        ? criteria.getMaxPrice().movePointRight(2).setScale(0, RoundingMode.FLOOR).longValue()
+                        : Long.MAX_VALUE;
+                and(rows, priceRange(rows, min, max));
+            }
+            return rows;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Bands inside the range are taken whole; only rows in a band the range cuts through
+    // are checked against their price
+    private long[] priceRange(long[] candidates, long min, long max) {
+        long[] inRange = new long[candidates.length];
+        for (int band = 0; band < bandRows.length; band++) {
+            long low = band == 0 ? Long.MIN_VALUE : bandLimits[band - 1];
+            long high = band < bandLimits.length ? bandLimits[band] - 1 : Long.MAX_VALUE;
+            long[] bandBitmap = bandRows[band];
+            if (high < min || low > max) {
+                continue;
+            }
+            if (low >= min && high <= max) {
+                for (int word = 0; word < inRange.length; word++) {
+                    inRange[word] |= bandBitmap[word];
+                }
+                continue;
+            }
+            for (int word = 0; word < inRange.length; word++) {
+                long bits = candidates[word] & bandBitmap[word];
+                while (bits != 0) {
+                    int row = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    if (priceCents[row] >= min && priceCents[row] <= max) {
+                        set(inRange, row);
+                    }
+                    bits &= bits - 1;
+                }
+            }
+        }
+        return inRange;
+    }
+
+    /**
+     * Matching rows per category ordinal.
+     */
+    int[] countByCategory(long[] rows) {
+        return count(categoryRows, rows);
+    }
+
+    /**
+     * Matching rows per price band, cheapest first.
+     */
+    int[] countByBand(long[] rows) {
+        return count(bandRows, rows);
+    }
+
+    /**
+     * Code point order, which is the byte order of PostgreSQL's "C" collation over UTF-8 and
+     * so the order ProductDAOImpl.searchPage sorts and pages by. String.compareTo differs from
+     * it for characters outside the Basic Multilingual Plane.
+     */
+    static int compareText(String a, String b) {
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            int x = a.codePointAt(i);
+            int y = b.codePointAt(j);
+            if (x != y) {
+                return Integer.compare(x, y);
+            }
+            i += Character.charCount(x);
+            j += Character.charCount(y);
+        }
+        return Integer.compare(a.length() - i, b.length() - j);
+    }
+
+    /**
+     * Up to limit matching rows in page order, starting after the given title and product ID
+     * (or at the start when title is null).
+     */
+    int[] page(long[] rows, String afterTitle, String afterProductId, int limit) {
+        int start = 0;
+        if (afterTitle != null) {
+            int low = 0;
+            int high = titles.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                int order = compareText(titles[mid], afterTitle);
+                if (order == 0) {
+                    order = compareText(productIds[mid], afterProductId);
+                }
+                if (order <= 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            start = low;
+        }
+        // Never more rows than the snapshot has left, whatever the caller asks for
+        int[] page = new int[Math.max(0, Math.min(limit, titles.length - start))];
+        int count = 0;
+        for (int row = nextSetBit(rows, start); row >= 0 && count < page.length; row = nextSetBit(rows, row + 1)) {
+            page[count++] = row;
+        }
+        return count == page.length ? page : Arrays.copyOf(page, count);
+    }
+
+    /**
+     * Applies the current state of changed products. Returns false, having applied nothing
+     * for that product, when a change can only be picked up by reloading.
+     */
+    boolean apply(Product product) {
+        int row = rowOf(product.getProductId());
+        if (row < 0 || !titles[row].equals(product.getTitle())) {
+            return false;
+        }
+        Integer ordinal = categoryOrdinals.get(categoryKey(product.getCategory()));
+        if (ordinal == null) {
+            return false;
+        }
+        lock.writeLock().lock();
+        try {
+            unindex(row);
+            categories[row] = ordinal;
+            priceCents[row] = cents(product.getPrice());
+            stock[row] = product.getStockQuantity();
+            index(row);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void index(int row) {
+        set(categoryRows[categories[row]], row);
+        set(bandRows[bandOf(priceCents[row])], row);
+        if (stock[row] > 0) {
+            set(inStockRows, row);
+        }
+    }
+
+    private void unindex(int row) {
+        clear(categoryRows[categories[row]], row);
+        clear(bandRows[bandOf(priceCents[row])], row);
+        clear(inStockRows, row);
+    }
+
+    private int bandOf(long cents) {
+        int band = 0;
+        while (band < bandLimits.length && cents >= bandLimits[band]) {
+            band++;
+        }
+        return band;
+    }
+
+    private int rowOf(String productId) {
+        int low = 0;
+        int high = rowsByProductId.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int order = productIds[rowsByProductId[mid]].compareTo(productId);
+            if (order < 0) {
+                low = mid + 1;
+            } else if (order > 0) {
+                high = mid - 1;
+            } else {
+                return rowsByProductId[mid];
+            }
+        }
+        return -1;
+    }
+
+    static int count(long[] rows) {
+        int count = 0;
+        for (long word : rows) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    private int[] count(long[][] bitmaps, long[] rows) {
+        lock.readLock().lock();
+        try {
+            int[] counts = new int[bitmaps.length];
+            for (int i = 0; i < bitmaps.length; i++) {
+                long[] bitmap = bitmaps[i];
+                int count = 0;
+                for (int word = 0; word < rows.length; word++) {
+                    count += Long.bitCount(bitmap[word] & rows[word]);
+                }
+                counts[i] = count;
+            }
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void and(long[] target, long[] mask) {
+        for (int word = 0; word < target.length; word++) {
+            target[word] &= mask[word];
+        }
+    }
+
+    private static void set(long[] bitmap, int row) {
+        bitmap[row >>> 6] |= 1L << row;
+    }
+
+    private static void clear(long[] bitmap, int row) {
+        bitmap[row >>> 6] &= ~(1L << row);
+    }
+
+    private static int nextSetBit(long[] bitmap, int from) {
+        int word = from >>> 6;
+        if (word >= bitmap.length) {
+            return -1;
+        }
+        long bits = bitmap[word] & (-1L << from);
+        while (true) {
+            if (bits != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(bits);
+            }
+            if (++word == bitmap.length) {
+                return -1;
+            }
+            bits = bitmap[word];
+        }
+    }
+
+    // SearchCriteria matches categories case-insensitively, like the SQL search
+    private static String categoryKey(String category) {
+        return category == null ? "" : category.toLowerCase(Locale.ROOT);
+    }
+
+    static long cents(BigDecimal price) {
+        return price == null ? 0 : price.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+    }
+
+    private static final class Row {
+        private final String productId;
+        private final String title;
+        private final String category;
+        private final long priceCents;
+        private final int stock;
+
+        private Row(String productId, String title, String category, long priceCents, int stock) {
+            this.productId = productId;
+            this.title = title;
+            this.category = category;
+            this.priceCents = priceCents;
+            this.stock = stock;
+        }
+    }
+}
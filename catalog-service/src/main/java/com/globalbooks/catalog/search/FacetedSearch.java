@@ -0,0 +1,290 @@
+package com.globalbooks.catalog.search;
+
+import com.globalbooks.catalog.config.CatalogConfig;
+import com.globalbooks.catalog.dao.CachingProductDAO;
+import com.globalbooks.catalog.dao.ContinuationToken;
+import com.globalbooks.catalog.dao.ProductChangeListener;
+import com.globalbooks.catalog.dao.ProductDAOFactory;
+import com.globalbooks.catalog.model.FacetCount;
+import com.globalbooks.catalog.model.Product;
+import com.globalbooks.catalog.model.ProductPage;
+import com.globalbooks.catalog.model.ProductSummary;
+import com.globalbooks.catalog.model.SearchCriteria;
+import com.globalbooks.catalog.model.SearchFacets;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Answers structured searches (category, price range, in stock) and facet counts from an
+ * in-memory {@link CatalogSnapshot}; the database only serves the rows of the page being
+ * returned, through the product cache. Keyword and author searches still run in PostgreSQL,
+ * which ranks them; their facets take one ID-only query and count the rest in memory.
+ *
+ * Changes reported by ProductChangeNotifier are batched for refresh-delay-ms and then
+ * patched into the snapshot, or the snapshot is reloaded when a batch can't be patched.
+ * Rows are re-checked against the criteria when fetched, so a stale snapshot can make a
+ * page short but never returns a product that no longer matches.
+ */
+public final class FacetedSearch implements ProductChangeListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(FacetedSearch.class);
+
+    private static volatile FacetedSearch instance;
+
+    private final CachingProductDAO productDAO;
+    private final long[] bandLimits;
+    private final long refreshDelayMillis;
+    private final int maxPatchSize;
+    private final int fetchSize;
+    private final ScheduledExecutorService refresher;
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+    private final AtomicBoolean reloadRequested = new AtomicBoolean(true);
+    private volatile CatalogSnapshot snapshot;
+    private volatile long refreshedAt;
+
+    private FacetedSearch(CachingProductDAO productDAO) {
+        this.productDAO = productDAO;
+        this.bandLimits = parseBands(CatalogConfig.getString("catalog.facets.price-bands", "10,25,50,100"));
+        this.refreshDelayMillis = CatalogConfig.getLong("catalog.facets.refresh-delay-ms", 1000);
+        this.maxPatchSize = CatalogConfig.getInt("catalog.facets.max-patch-size", 1000);
+        this.fetchSize = CatalogConfig.getInt("catalog.export.fetch-size", 1000);
+        this.refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "facet-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * The shared instance; the first call starts loading the snapshot in the background.
+     */
+    public static FacetedSearch getInstance() {
+        if (instance == null) {
+            synchronized (FacetedSearch.class) {
+                if (instance == null) {
+                    CachingProductDAO productCache = ProductDAOFactory.getProductCache();
+                    FacetedSearch search = new FacetedSearch(productCache);
+                    productCache.getChangeNotifier().addListener(search);
+                    search.refresher.execute(search::refresh);
+                    instance = search;
+                }
+            }
+        }
+        return instance;
+    }
+
+    public static void shutdown() {
+        if (instance != null) {
+            instance.refresher.shutdownNow();
+        }
+    }
+
+    public boolean isReady() {
+        return snapshot != null;
+    }
+
+    /**
+     * True when the page can be served from memory: the snapshot is loaded and the search
+     * has no keyword or author condition.
+     */
+    public boolean canSearch(SearchCriteria criteria) {
+        return snapshot != null && isEmpty(criteria.getKeyword()) && isEmpty(criteria.getAuthor());
+    }
+
+    /**
+     * Same results and continuation tokens as ProductDAO.searchPage for searches that
+     * {@link #canSearch} accepts.
+     *
+     * @throws IllegalArgumentException if the continuation token is invalid
+     */
+    public ProductPage searchPage(SearchCriteria criteria) {
+        CatalogSnapshot current = snapshot;
+        ContinuationToken after = criteria.getContinuationToken() != null
+                ? ContinuationToken.decode(criteria.getContinuationToken()) : null;
+        if (after != null && after.getRank() != null) {
+            throw new IllegalArgumentException("Continuation token does not belong to this search");
+        }
+
+        int pageSize = Math.min(criteria.getMaxResults(), SearchCriteria.MAX_RESULTS_LIMIT);
+        long[] matches = current.filter(criteria, null, true, true);
+        // One extra row tells us whether another page exists
+        int[] rows = current.page(matches, after != null ? after.getTitle() : null,
+                after != null ? after.getProductId() : null, pageSize + 1);
+        int pageRows = Math.min(rows.length, pageSize);
+
+        List<String> productIds = new ArrayList<>(pageRows);
+        for (int i = 0; i < pageRows; i++) {
+            productIds.add(current.getProductId(rows[i]));
+        }
+        Map<String, Product> products = new HashMap<>();
+        for (Product product : productDAO.findByIds(productIds)) {
+            products.put(product.getProductId(), product);
+        }
+
+        ProductPage page = new ProductPage();
+        for (String productId : productIds) {
+            Product product = products.get(productId);
+            if (product == null || !matches(criteria, product)) {
+                continue;
+            }
+            if (criteria.isSummaryOnly()) {
+                page.getSummaries().add(toSummary(product));
+            } else {
+                page.getProducts().add(product);
+            }
+        }
+        if (rows.length > pageSize) {
+            int last = rows[pageSize - 1];
+            page.setContinuationToken(new ContinuationToken(
+                    null, current.getTitle(last), current.getProductId(last)).encode());
+        }
+        return page;
+    }
+
+    /**
+     * Facet counts for the search, or null if its keyword or author condition could not be
+     * evaluated against the database.
+     */
+    public SearchFacets facets(SearchCriteria criteria) {
+        CatalogSnapshot current = snapshot;
+        long[] textMatches = null;
+        if (!isEmpty(criteria.getKeyword()) || !isEmpty(criteria.getAuthor())) {
+            List<String> productIds = productDAO.findIdsMatchingText(criteria);
+            if (productIds == null) {
+                return null;
+            }
+            textMatches = current.rowsOf(productIds);
+        }
+
+        SearchFacets facets = new SearchFacets();
+        facets.setAsOf(new Date(refreshedAt));
+        facets.setTotalMatches(CatalogSnapshot.count(current.filter(criteria, textMatches, true, true)));
+
+        int[] byCategory = current.countByCategory(current.filter(criteria, textMatches, false, true));
+        for (int ordinal = 0; ordinal < byCategory.length; ordinal++) {
+            if (byCategory[ordinal] > 0) {
+                facets.getCategories().add(new FacetCount(current.getCategoryName(ordinal), byCategory[ordinal], null, null));
+            }
+        }
+        facets.getCategories().sort((a, b) -> a.getCount() != b.getCount()
+                ? Integer.compare(b.getCount(), a.getCount()) : a.getValue().compareTo(b.getValue()));
+
+        int[] byBand = current.countByBand(current.filter(criteria, textMatches, true, false));
+        for (int band = 0; band < byBand.length; band++) {
+            BigDecimal min = band == 0 ? BigDecimal.valueOf(0, 2) : BigDecimal.valueOf(bandLimits[band - 1], 2);
+            BigDecimal max = band < bandLimits.length ? BigDecimal.valueOf(bandLimits[band], 2) : null;
+            String label = max != null ? plain(min) + "-" + plain(max) : plain(min) + "+";
+            facets.getPriceBands().add(new FacetCount(label, byBand[band], min, max));
+        }
+        return facets;
+    }
+
+    @Override
+    public void productChanged(String productId) {
+        pending.add(productId);
+        scheduleRefresh();
+    }
+
+    @Override
+    public void allProductsChanged() {
+        reloadRequested.set(true);
+        scheduleRefresh();
+    }
+
+    private void scheduleRefresh() {
+        if (refreshScheduled.compareAndSet(false, true)) {
+            refresher.schedule(this::refresh, refreshDelayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void refresh() {
+        refreshScheduled.set(false);
+        List<String> changed = new ArrayList<>(pending);
+        pending.removeAll(changed);
+        boolean reload = reloadRequested.getAndSet(false) || snapshot == null || changed.size() > maxPatchSize;
+
+        if (!reload && !changed.isEmpty()) {
+            // The notifier has already evicted these, so this reads them fresh
+            List<Product> products = productDAO.findByIds(changed);
+            reload = products.size() != changed.size();
+            for (Product product : products) {
+                reload |= !snapshot.apply(product);
+            }
+            refreshedAt = System.currentTimeMillis();
+        }
+        if (!reload) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        try {
+            snapshot = CatalogSnapshot.load(bandLimits, fetchSize);
+            refreshedAt = snapshot.getLoadedAt();
+            logger.info("Facet snapshot loaded with {} products in {} ms",
+                    snapshot.size(), System.currentTimeMillis() - start);
+        } catch (SQLException | RuntimeException e) {
+            logger.error("Failed to load facet snapshot, retrying in {} ms", refreshDelayMillis, e);
+            allProductsChanged();
+        }
+    }
+
+    // Fetched rows are current; the snapshot that selected them may not be
+    private static boolean matches(SearchCriteria criteria, Product product) {
+        if (!isEmpty(criteria.getCategory()) && !criteria.getCategory().equalsIgnoreCase(product.getCategory())) {
+            return false;
+        }
+        if (criteria.isInStockOnly() && product.getStockQuantity() <= 0) {
+            return false;
+        }
+        BigDecimal price = product.getPrice();
+        if (criteria.getMinPrice() != null && (price == null || price.compareTo(criteria.getMinPrice()) < 0)) {
+            return false;
+        }
+        return criteria.getMaxPrice() == null || (price != null && price.compareTo(criteria.getMaxPrice()) <= 0);
+    }
+
+    private static ProductSummary toSummary(Product product) {
+        ProductSummary summary = new ProductSummary();
+        summary.setProductId(product.getProductId());
+        summary.setTitle(product.getTitle());
+        summary.setAuthor(product.getAuthor());
+        summary.setPrice(product.getPrice());
+        summary.setCurrency(product.getCurrency());
+        summary.setStockQuantity(product.getStockQuantity());
+        return summary;
+    }
+
+    private static long[] parseBands(String bands) {
+        String[] limits = bands.split(",");
+        long[] cents = new long[limits.length];
+        for (int i = 0; i < limits.length; i++) {
+            cents[i] = CatalogSnapshot.cents(new BigDecimal(limits[i].trim()));
+            if (i > 0 && cents[i] <= cents[i - 1]) {
+                throw new IllegalArgumentException("catalog.facets.price-bands must be ascending: " + bands);
+            }
+        }
+        return cents;
+    }
+
+    private static String plain(BigDecimal amount) {
+        return amount.stripTrailingZeros().toPlainString();
+    }
+
+    private static boolean isEmpty(String value) {
+        return value == null || value.isEmpty();
+    }
+}
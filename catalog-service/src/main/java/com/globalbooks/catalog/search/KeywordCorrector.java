@@ -0,0 +1,170 @@
+package com.globalbooks.catalog.search;
+
+import com.globalbooks.catalog.config.CatalogConfig;
+import com.globalbooks.catalog.dao.CachingProductDAO;
+import com.globalbooks.catalog.dao.ProductChangeListener;
+import com.globalbooks.catalog.dao.ProductDAOFactory;
+import com.globalbooks.catalog.model.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Suggests known catalog words for the misspelled words of a fuzzy keyword search. The
+ * vocabulary is every title and author word, built from a full product scan on first use;
+ * words of new or renamed products are added as ProductChangeNotifier reports them.
+ *
+ * Words of four to six letters may be one edit away from a catalog word, longer words two;
+ * shorter words, numbers and words already in the catalog are left alone.
+ */
+public final class KeywordCorrector implements ProductChangeListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(KeywordCorrector.class);
+
+    private static final int MIN_CORRECTED_LENGTH = 4;
+    private static final int TWO_EDIT_LENGTH = 7;
+
+    private static volatile KeywordCorrector instance;
+
+    private final CachingProductDAO productDAO;
+    private final int maxAlternatives;
+    private final ExecutorService indexer;
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private volatile TermIndex terms;
+
+    private KeywordCorrector(CachingProductDAO productDAO, int maxAlternatives) {
+        this.productDAO = productDAO;
+        this.maxAlternatives = maxAlternatives;
+        this.indexer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "keyword-indexer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * The shared corrector; the first call starts building the vocabulary in the background.
+     */
+    public static KeywordCorrector getInstance() {
+        if (instance == null) {
+            synchronized (KeywordCorrector.class) {
+                if (instance == null) {
+                    CachingProductDAO productCache = ProductDAOFactory.getProductCache();
+                    KeywordCorrector corrector = new KeywordCorrector(productCache,
+                            CatalogConfig.getInt("catalog.search.fuzzy.max-alternatives", 3));
+                    productCache.getChangeNotifier().addListener(corrector);
+                    corrector.allProductsChanged();
+                    instance = corrector;
+                }
+            }
+        }
+        return instance;
+    }
+
+    public static void shutdown() {
+        if (instance != null) {
+            instance.indexer.shutdownNow();
+        }
+    }
+
+    /**
+     * Catalog words to accept in place of each keyword word that looks misspelled. Empty
+     * while the vocabulary is still being built.
+     */
+    public Map<String, List<String>> alternatives(String keyword) {
+        Map<String, List<String>> alternatives = new LinkedHashMap<>();
+        TermIndex current = terms;
+        if (current == null) {
+            return alternatives;
+        }
+        for (String word : TermIndex.words(keyword)) {
+            if (word.length() < MIN_CORRECTED_LENGTH || hasDigit(word)
+                    || current.contains(word) || alternatives.containsKey(word)) {
+                continue;
+            }
+            int maxEdits = word.length() < TWO_EDIT_LENGTH ? 1 : 2;
+            List<String> closest = current.closest(word, maxEdits, maxAlternatives);
+            if (!closest.isEmpty()) {
+                alternatives.put(word, closest);
+            }
+        }
+        return alternatives;
+    }
+
+    @Override
+    public void productChanged(String productId) {
+        pending.add(productId);
+        if (drainScheduled.compareAndSet(false, true)) {
+            indexer.execute(this::applyPending);
+        }
+    }
+
+    @Override
+    public void allProductsChanged() {
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            indexer.execute(this::rebuild);
+        }
+    }
+
+    // Only new words are added, so product updates don't inflate the counts of existing ones
+    private void applyPending() {
+        drainScheduled.set(false);
+        TermIndex current = terms;
+        for (String productId : pending) {
+            pending.remove(productId);
+            Product product = current != null ? productDAO.findById(productId) : null;
+            if (product == null) {
+                continue;
+            }
+            for (String word : wordsOf(product)) {
+                if (!current.contains(word)) {
+                    current.add(word);
+                }
+            }
+        }
+    }
+
+    private void rebuild() {
+        rebuildScheduled.set(false);
+        long start = System.currentTimeMillis();
+        TermIndex rebuilt = new TermIndex();
+        long count = productDAO.streamAll(product -> {
+            for (String word : wordsOf(product)) {
+                rebuilt.add(word);
+            }
+        });
+        if (count < 0) {
+            logger.error("Keyword vocabulary rebuild failed, keeping the previous vocabulary");
+            return;
+        }
+        terms = rebuilt;
+        logger.info("Keyword vocabulary built with {} words from {} products in {} ms",
+                rebuilt.size(), count, System.currentTimeMillis() - start);
+    }
+
+    // Numbers and ISBN fragments are typed as they are meant
+    private static boolean hasDigit(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            if (Character.isDigit(word.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Set<String> wordsOf(Product product) {
+        Set<String> words = new LinkedHashSet<>(TermIndex.words(product.getTitle()));
+        words.addAll(TermIndex.words(product.getAuthor()));
+        return words;
+    }
+}
@@ -0,0 +1,155 @@
+package com.globalbooks.catalog.search;
+
+import com.globalbooks.catalog.config.CatalogConfig;
+import com.globalbooks.catalog.dao.CachingProductDAO;
+import com.globalbooks.catalog.dao.ProductChangeListener;
+import com.globalbooks.catalog.dao.ProductDAOFactory;
+import com.globalbooks.catalog.model.Product;
+import com.globalbooks.catalog.search.AutocompleteIndex.Entry;
+import com.globalbooks.catalog.search.AutocompleteIndex.Field;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the autocomplete index in step with the catalog. The index is built from a full
+ * product scan on first use and afterwards updated per product from ProductChangeNotifier
+ * events, so local writes and NOTIFYs from other nodes both show up. All index writes run
+ * on one background thread; bursts of changes to the same product are applied once.
+ */
+public final class ProductSuggester implements ProductChangeListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSuggester.class);
+
+    private static volatile ProductSuggester instance;
+
+    private final CachingProductDAO productDAO;
+    private final AutocompleteIndex index;
+    private final ExecutorService indexer;
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private volatile boolean ready;
+
+    private ProductSuggester(CachingProductDAO productDAO, int topK) {
+        this.productDAO = productDAO;
+        this.index = new AutocompleteIndex(topK);
+        this.indexer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "autocomplete-indexer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * The shared suggester; the first call starts building the index in the background.
+     */
+    public static ProductSuggester getInstance() {
+        if (instance == null) {
+            synchronized (ProductSuggester.class) {
+                if (instance == null) {
+                    CachingProductDAO productCache = ProductDAOFactory.getProductCache();
+                    ProductSuggester suggester = new ProductSuggester(productCache,
+                            CatalogConfig.getInt("catalog.autocomplete.max-suggestions", 10));
+                    productCache.getChangeNotifier().addListener(suggester);
+                    suggester.allProductsChanged();
+                    instance = suggester;
+                }
+            }
+        }
+        return instance;
+    }
+
+    public static void shutdown() {
+        if (instance != null) {
+            instance.indexer.shutdownNow();
+        }
+    }
+
+    /**
+     * False until the first build has finished; callers fall back to a database search.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int getMaxSuggestions() {
+        return index.getTopK();
+    }
+
+    public List<Entry> suggest(String prefix, int maxResults) {
+        return index.lookup(prefix, maxResults);
+    }
+
+    @Override
+    public void productChanged(String productId) {
+        pending.add(productId);
+        if (drainScheduled.compareAndSet(false, true)) {
+            indexer.execute(this::applyPending);
+        }
+    }
+
+    @Override
+    public void allProductsChanged() {
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            indexer.execute(this::rebuild);
+        }
+    }
+
+    private void applyPending() {
+        drainScheduled.set(false);
+        for (String productId : pending) {
+            pending.remove(productId);
+            try {
+                index.update(productId, entriesFor(productDAO.findById(productId)));
+            } catch (RuntimeException e) {
+                logger.error("Failed to update autocomplete entries for product: {}", productId, e);
+            }
+        }
+    }
+
+    private void rebuild() {
+        rebuildScheduled.set(false);
+        long start = System.currentTimeMillis();
+        List<Entry[]> products = new ArrayList<>();
+        long count = productDAO.streamAll(product -> products.add(entriesFor(product)));
+        if (count < 0) {
+            logger.error("Autocomplete index rebuild failed, keeping the previous index");
+            return;
+        }
+        index.rebuild(products);
+        ready = true;
+        logger.info("Autocomplete index built for {} products in {} ms",
+                count, System.currentTimeMillis() - start);
+    }
+
+    private static Entry[] entriesFor(Product product) {
+        if (product == null) {
+            return new Entry[0];
+        }
+        int score = stockScore(product.getStockQuantity());
+        List<Entry> entries = new ArrayList<>(3);
+        if (product.getTitle() != null) {
+            entries.add(new Entry(product.getProductId(), product.getTitle(), Field.TITLE, score));
+        }
+        if (product.getAuthor() != null) {
+            entries.add(new Entry(product.getProductId(), product.getAuthor(), Field.AUTHOR, score));
+        }
+        if (product.getIsbn() != null) {
+            entries.add(new Entry(product.getProductId(), product.getIsbn(), Field.ISBN, score));
+        }
+        return entries.toArray(new Entry[0]);
+    }
+
+    // Out of stock ranks last, then by order of magnitude of stock, so ordinary
+    // reservations rarely move a product and rarely cost an index update
+    private static int stockScore(int stockQuantity) {
+        return stockQuantity <= 0 ? 0 : 32 - Integer.numberOfLeadingZeros(stockQuantity);
+    }
+}
@@ -0,0 +1,243 @@
+package com.globalbooks.catalog.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Vocabulary of catalog words with a trigram index, for finding the known words closest
+ * to a misspelled one.
+ *
+ * Candidates are the words of a length within the edit budget sharing enough trigrams with
+ * the query word (each edit breaks at most three of them), plus the query word with two
+ * adjacent letters swapped; only those are checked with an edit distance that counts such a
+ * swap as one edit. Words are padded with a boundary marker so first and last letters carry
+ * weight.
+ *
+ * Words are only ever added, with the number of products using them at the time; a word
+ * that drops out of the catalog stays until the next full rebuild and simply matches nothing.
+ */
+public final class TermIndex {
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final char BOUNDARY = '\u0001';
+    private static final int MIN_WORD_LENGTH = 3;
+    private static final int MAX_WORD_LENGTH = 64;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> termIds = new HashMap<>();
+    private final List<String> terms = new ArrayList<>();
+    private int[] frequencies = new int[1024];
+    // Keyed by trigram and word length, so only words of a possible length are looked at
+    private final Map<Long, Postings> postings = new HashMap<>();
+
+    // Per-thread shared-trigram counters, sized to the vocabulary and cleared after each use
+    private final ThreadLocal<int[]> counters = ThreadLocal.withInitial(() -> new int[0]);
+
+    /**
+     * Splits text into words the same way the keyword search does.
+     */
+    public static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        if (text != null) {
+            for (String word : NON_WORD.split(text.toLowerCase(Locale.ROOT))) {
+                if (!word.isEmpty()) {
+                    words.add(word);
+                }
+            }
+        }
+        return words;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return terms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(String word) {
+        lock.readLock().lock();
+        try {
+            return termIds.containsKey(word);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Counts one more product using the word, adding it if it is new.
+     */
+    public void add(String word) {
+        if (word.length() < MIN_WORD_LENGTH || word.length() > MAX_WORD_LENGTH) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Integer id = termIds.get(word);
+            if (id == null) {
+                id = terms.size();
+                termIds.put(word, id);
+                terms.add(word);
+                if (id == frequencies.length) {
+                    frequencies = Arrays.copyOf(frequencies, id * 2);
+                }
+                for (long trigram : trigrams(word)) {
+                    postings.computeIfAbsent(key(trigram, word.length()), key -> new Postings()).add(id);
+                }
+            }
+            frequencies[id]++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Known words within maxEdits of the word, closest and then most used first. Complete
+     * when the word has more than 3 * maxEdits trigrams (length + 2 - 3 * maxEdits > 0);
+     * below that a match can share none of them and may be missed.
+     */
+    public List<String> closest(String word, int maxEdits, int limit) {
+        List<String> matches = new ArrayList<>();
+        long[] grams = trigrams(word);
+        int required = Math.max(1, grams.length - 3 * maxEdits);
+        int[][] rows = new int[3][word.length() + maxEdits + 1];
+
+        lock.readLock().lock();
+        try {
+            int[] shared = counters.get();
+            if (shared.length < terms.size()) {
+                shared = new int[Math.max(terms.size(), shared.length * 2)];
+                counters.set(shared);
+            }
+            int[] candidates = new int[64];
+            int candidateCount = 0;
+            int longest = Math.min(word.length() + maxEdits, MAX_WORD_LENGTH);
+            for (int length = Math.max(MIN_WORD_LENGTH, word.length() - maxEdits); length <= longest; length++) {
+                for (long gram : grams) {
+                    Postings list = postings.get(key(gram, length));
+                    if (list == null) {
+                        continue;
+                    }
+                    for (int i = 0; i < list.size; i++) {
+                        int id = list.ids[i];
+                        if (shared[id]++ == 0) {
+                            if (candidateCount == candidates.length) {
+                                candidates = Arrays.copyOf(candidates, candidateCount * 2);
+                            }
+                            candidates[candidateCount++] = id;
+                        }
+                    }
+                }
+            }
+
+            List<int[]> scored = new ArrayList<>();
+            // A swap inside a four-letter word breaks all of its trigrams, so swaps are looked up directly
+            for (int i = 0; i + 1 < word.length() && maxEdits > 0; i++) {
+                if (word.charAt(i) == word.charAt(i + 1)) {
+                    continue;
+                }
+                char[] swapped = word.toCharArray();
+                swapped[i] = word.charAt(i + 1);
+                swapped[i + 1] = word.charAt(i);
+                Integer id = termIds.get(new String(swapped));
+                if (id != null && shared[id] < required) {
+                    scored.add(new int[] {id, 1});
+                }
+            }
+            for (int i = 0; i < candidateCount; i++) {
+                int id = candidates[i];
+                int count = shared[id];
+                shared[id] = 0;
+                if (count < required) {
+                    continue;
+                }
+                int distance = distance(word, terms.get(id), maxEdits, rows);
+                if (distance > 0 && distance <= maxEdits) {
+                    scored.add(new int[] {id, distance});
+                }
+            }
+            scored.sort((a, b) -> a[1] != b[1] ? Integer.compare(a[1], b[1])
+                    : frequencies[a[0]] != frequencies[b[0]] ? Integer.compare(frequencies[b[0]], frequencies[a[0]])
+                    : terms.get(a[0]).compareTo(terms.get(b[0])));
+            for (int i = 0; i < scored.size() && i < limit; i++) {
+                matches.add(terms.get(scored.get(i)[0]));
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static long key(long trigram, int length) {
+        return (long) length << 48 | trigram;
+    }
+
+    // Optimal string alignment distance, giving up with maxEdits + 1 once every
+    // alignment in a row is over budget
+    static int distance(String a, String b, int maxEdits, int[][] rows) {
+        int[] previous2 = rows[0];
+        int[] previous = rows[1];
+        int[] current = rows[2];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > maxEdits) {
+                return maxEdits + 1;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[b.length()];
+    }
+
+    private static long[] trigrams(String word) {
+        String padded = BOUNDARY + word + BOUNDARY;
+        long[] grams = new long[padded.length() - 2];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = ((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2);
+        }
+        // A repeated trigram counts once, on both the word and the query side
+        Arrays.sort(grams);
+        int distinct = 0;
+        for (int i = 0; i < grams.length; i++) {
+            if (i == 0 || grams[i] != grams[i - 1]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return distinct == grams.length ? grams : Arrays.copyOf(grams, distinct);
+    }
+
+    private static final class Postings {
+        private int[] ids = new int[4];
+        private int size;
+
+        private void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.globalbooks.catalog.security;
+
+import com.globalbooks.catalog.config.SecurityConfig;
+import com.globalbooks.catalog.config.SecurityConfig.UserInfo;
+import com.globalbooks.catalog.config.SecurityConfig.UserRole;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the UsernameToken credentials, built once from SecurityConfig with
+ * every password's SHA-1 digest computed up front. Authentication is a map lookup plus a
+ * constant-time comparison; call {@link #reload()} after the user table changes.
+ */
+public final class CredentialStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(CredentialStore.class);
+
+    private static final ThreadLocal<MessageDigest> SHA1 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 not available", e);
+        }
+    });
+
+    private static volatile CredentialStore current = load();
+
+    private final Map<String, Credential> credentials;
+
+    private CredentialStore(Map<String, Credential> credentials) {
+        this.credentials = credentials;
+    }
+
+    public static CredentialStore current() {
+        return current;
+    }
+
+    public static void reload() {
+        current = load();
+        logger.info("Reloaded {} web service credentials", current.credentials.size());
+    }
+
+    public boolean contains(String username) {
+        return credentials.containsKey(username);
+    }
+
+    /**
+     * PasswordText is hashed and compared with the stored digest; PasswordDigest is the
+     * Base64 SHA-1 of the password and is compared with the stored encoding as sent.
+     */
+    public boolean authenticate(String username, String password, String passwordType) {
+        return authenticate(username, password,
+                passwordType != null && passwordType.contains("PasswordDigest"));
+    }
+
+    private boolean authenticate(String username, String password, boolean digest) {
+        Credential credential = credentials.get(username);
+        if (credential == null) {
+            return false;
+        }
+        if (digest) {
+            return MessageDigest.isEqual(credential.encodedDigest,
+                    password.getBytes(StandardCharsets.US_ASCII));
+        }
+        return MessageDigest.isEqual(credential.digest, sha1(password));
+    }
+
+    // Guest accounts exist for role lookups but have never been allowed to call the service
+    private static CredentialStore load() {
+        Map<String, Credential> credentials = new HashMap<>();
+        for (UserInfo user : SecurityConfig.getUsers()) {
+            if (user.getRole() != UserRole.GUEST) {
+                byte[] digest = sha1(user.getPassword());
+                credentials.put(user.getUsername(), new Credential(digest,
+                        Base64.getEncoder().encodeToString(digest).getBytes(StandardCharsets.US_ASCII)));
+            }
+        }
+        return new CredentialStore(Collections.unmodifiableMap(credentials));
+    }
+
+    private static byte[] sha1(String value) {
+        MessageDigest digest = SHA1.get();
+        digest.reset();
+        return digest.digest(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static final class Credential {
+        private final byte[] digest;
+        private final byte[] encodedDigest;
+
+        private Credential(byte[] digest, byte[] encodedDigest) {
+            this.digest = digest;
+            this.encodedDigest = encodedDigest;
+        }
+    }
+}
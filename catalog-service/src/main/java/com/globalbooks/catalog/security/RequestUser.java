@@ -0,0 +1,30 @@
+package com.globalbooks.catalog.security;
+
+/**
+ * The user a non-SOAP entry point authenticated for the request running on this thread.
+ * The SOAP endpoint carries its user in the message context instead; callers without a
+ * WebServiceContext, such as the JSON facade, set the user around the service call and
+ * clear it in a finally block, since container threads are reused.
+ */
+public final class RequestUser {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private RequestUser() {
+    }
+
+    public static void set(String username) {
+        CURRENT.set(username);
+    }
+
+    /**
+     * The user set for this thread, or null when none is.
+     */
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+}
@@ -0,0 +1,48 @@
+package com.globalbooks.catalog.security;
+
+import javax.xml.bind.annotation.*;
+
+/**
+ * Binding for the parts of the wsse:Security header the handler reads. Unmarshalled
+ * straight from the header's XMLStreamReader, so other children (Timestamp, Nonce,
+ * signatures) are skipped without being materialized.
+ */
+@XmlRootElement(name = "Security", namespace = SecurityHeader.WSSE_NS)
+@XmlAccessorType(XmlAccessType.FIELD)
+public class SecurityHeader {
+
+    public static final String WSSE_NS = "http://docs.oasis-open.org/wss/2004/01/oasis-200401-wss-wssecurity-secext-1.0.xsd";
+
+    @XmlElement(name = "UsernameToken", namespace = WSSE_NS)
+    private UsernameToken usernameToken;
+
+    public UsernameToken getUsernameToken() { return usernameToken; }
+
+    @XmlAccessorType(XmlAccessType.FIELD)
+    public static class UsernameToken {
+
+        @XmlElement(name = "Username", namespace = WSSE_NS)
+        private String username;
+
+        @XmlElement(name = "Password", namespace = WSSE_NS)
+        private Password password;
+
+        public String getUsername() { return username; }
+
+        public Password getPassword() { return password; }
+    }
+
+    @XmlAccessorType(XmlAccessType.FIELD)
+    public static class Password {
+
+        @XmlValue
+        private String value;
+
+        @XmlAttribute(name = "Type")
+        private String type;
+
+        public String getValue() { return value; }
+
+        public String getType() { return type; }
+    }
+}
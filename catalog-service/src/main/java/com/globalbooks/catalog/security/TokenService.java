@@ -0,0 +1,112 @@
+package com.globalbooks.catalog.security;
+
+import com.globalbooks.catalog.config.CatalogConfig;
+import com.globalbooks.catalog.config.SecurityConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Stateless bearer tokens for the JSON facade: base64url("username:expiresAt") plus an
+ * HMAC-SHA256 over it. Verifying one costs a MAC and a map probe, with no XML and no
+ * password hashing per call. Tokens stop working once the user leaves CredentialStore.
+ */
+public final class TokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenService.class);
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private static final TokenService INSTANCE = new TokenService(
+            loadSecret(), CatalogConfig.getLong("catalog.api.token-ttl-ms", SecurityConfig.TOKEN_EXPIRATION_TIME));
+
+    private final ThreadLocal<Mac> mac;
+    private final long ttlMillis;
+
+    private TokenService(byte[] secret, long ttlMillis) {
+        SecretKeySpec key = new SecretKeySpec(secret, HMAC_ALGORITHM);
+        this.mac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac instance = Mac.getInstance(HMAC_ALGORITHM);
+                instance.init(key);
+                return instance;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(HMAC_ALGORITHM + " not available", e);
+            }
+        });
+        this.ttlMillis = ttlMillis;
+    }
+
+    public static TokenService getInstance() {
+        return INSTANCE;
+    }
+
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    public String issue(String username) {
+        byte[] payload = (username + ":" + (System.currentTimeMillis() + ttlMillis))
+                .getBytes(StandardCharsets.UTF_8);
+        return ENCODER.encodeToString(payload) + "." + ENCODER.encodeToString(sign(payload));
+    }
+
+    /**
+     * Returns the token's user, or null if the token is malformed, forged, expired or
+     * belongs to a user that no longer exists.
+     */
+    public String verify(String token) {
+        int dot = token.indexOf('.');
+        if (dot <= 0) {
+            return null;
+        }
+        byte[] payload;
+        byte[] signature;
+        try {
+            payload = DECODER.decode(token.substring(0, dot));
+            signature = DECODER.decode(token.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (!MessageDigest.isEqual(sign(payload), signature)) {
+            return null;
+        }
+
+        String claims = new String(payload, StandardCharsets.UTF_8);
+        int colon = claims.lastIndexOf(':');
+        long expiresAt;
+        try {
+            expiresAt = Long.parseLong(claims.substring(colon + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        String username = claims.substring(0, Math.max(colon, 0));
+        if (expiresAt < System.currentTimeMillis() || !CredentialStore.current().contains(username)) {
+            return null;
+        }
+        return username;
+    }
+
+    private byte[] sign(byte[] payload) {
+        return mac.get().doFinal(payload);
+    }
+
+    // Without a configured secret tokens only verify on the node that issued them, until restart
+    private static byte[] loadSecret() {
+        String secret = CatalogConfig.getString("catalog.api.token-secret", null);
+        if (secret != null) {
+            return secret.getBytes(StandardCharsets.UTF_8);
+        }
+        logger.warn("catalog.api.token-secret is not set; using a random per-process token key");
+        byte[] random = new byte[32];
+        new SecureRandom().nextBytes(random);
+        return random;
+    }
+}
@@ -17,10 +17,31 @@ public interface CatalogService {
     @WebResult(name = "product")
     Product getProductById(@WebParam(name = "productId") String productId) throws CatalogException;
 
+    @WebMethod
+    @WebResult(name = "productBatch")
+    ProductBatchResult getProductsByIds(
+            @WebParam(name = "productId") List<String> productIds
+    ) throws CatalogException;
+
     @WebMethod
     @WebResult(name = "products")
     List<Product> searchProducts(@WebParam(name = "criteria") SearchCriteria criteria) throws CatalogException;
 
+    @WebMethod
+    @WebResult(name = "productPage")
+    ProductPage searchProductsPage(@WebParam(name = "criteria") SearchCriteria criteria) throws CatalogException;
+
+    @WebMethod
+    @WebResult(name = "facets")
+    SearchFacets getSearchFacets(@WebParam(name = "criteria") SearchCriteria criteria) throws CatalogException;
+
+    @WebMethod
+    @WebResult(name = "suggestion")
+    List<Suggestion> autocomplete(
+            @WebParam(name = "prefix") String prefix,
+            @WebParam(name = "maxResults") int maxResults
+    ) throws CatalogException;
+
     @WebMethod
     @WebResult(name = "priceQuote")
     PriceQuote getProductPrice(
@@ -28,6 +49,10 @@ public interface CatalogService {
             @WebParam(name = "quantity") int quantity
     ) throws CatalogException;
 
+    @WebMethod
+    @WebResult(name = "cartQuote")
+    CartQuote getCartQuote(@WebParam(name = "line") List<CartLine> lines) throws CatalogException;
+
     @WebMethod
     @WebResult(name = "inventoryStatus")
     InventoryStatus checkInventory(@WebParam(name = "productId") String productId) throws CatalogException;
@@ -39,4 +64,10 @@ public interface CatalogService {
             @WebParam(name = "quantity") int quantity,
             @WebParam(name = "operation") String operation
     ) throws CatalogException;
+
+    @WebMethod
+    @WebResult(name = "bulkInventoryResult")
+    BulkInventoryUpdateResult bulkUpdateInventory(
+            @WebParam(name = "update") List<InventoryUpdate> updates
+    ) throws CatalogException;
 }
\ No newline at end of file
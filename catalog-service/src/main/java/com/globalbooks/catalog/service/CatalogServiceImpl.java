@@ -2,9 +2,14 @@
 package com.globalbooks.catalog.service;
 
 import com.globalbooks.catalog.dao.ProductDAO;
-import com.globalbooks.catalog.dao.ProductDAOImpl;
+import com.globalbooks.catalog.dao.ProductDAOFactory;
 import com.globalbooks.catalog.exception.CatalogException;
 import com.globalbooks.catalog.model.*;
+import com.globalbooks.catalog.search.AutocompleteIndex;
+import com.globalbooks.catalog.search.FacetedSearch;
+import com.globalbooks.catalog.search.KeywordCorrector;
+import com.globalbooks.catalog.search.ProductSuggester;
+import com.globalbooks.catalog.security.RequestUser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import javax.jws.WebService;
@@ -12,7 +17,14 @@ import javax.jws.HandlerChain;
 import javax.annotation.Resource;
 import javax.xml.ws.WebServiceContext;
 import javax.xml.ws.handler.MessageContext;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 
 @WebService(
         endpointInterface = "com.globalbooks.catalog.service.CatalogService",
@@ -24,13 +36,29 @@ import java.util.List;
 public class CatalogServiceImpl implements CatalogService {
 
     private static final Logger logger = LoggerFactory.getLogger(CatalogServiceImpl.class);
+    private static final int MAX_BATCH_SIZE = 100;
+
+    // Cached lookups are left unbounded; the query-bound operations split the 10 pooled
+    // connections so no single one of them can hold all of them
+    private static final OperationBulkhead GET_PRODUCT_BY_ID = OperationBulkhead.forOperation("getProductById", 0);
+    private static final OperationBulkhead GET_PRODUCTS_BY_IDS = OperationBulkhead.forOperation("getProductsByIds", 0);
+    private static final OperationBulkhead SEARCH_PRODUCTS = OperationBulkhead.forOperation("searchProducts", 6);
+    private static final OperationBulkhead SEARCH_PRODUCTS_PAGE = OperationBulkhead.forOperation("searchProductsPage", 6);
+    private static final OperationBulkhead GET_SEARCH_FACETS = OperationBulkhead.forOperation("getSearchFacets", 0);
+    private static final OperationBulkhead AUTOCOMPLETE = OperationBulkhead.forOperation("autocomplete", 0);
+    private static final OperationBulkhead GET_PRODUCT_PRICE = OperationBulkhead.forOperation("getProductPrice", 0);
+    private static final OperationBulkhead GET_CART_QUOTE = OperationBulkhead.forOperation("getCartQuote", 0);
+    private static final OperationBulkhead CHECK_INVENTORY = OperationBulkhead.forOperation("checkInventory", 4);
+    private static final OperationBulkhead UPDATE_INVENTORY = OperationBulkhead.forOperation("updateInventory", 4);
+    private static final OperationBulkhead BULK_UPDATE_INVENTORY = OperationBulkhead.forOperation("bulkUpdateInventory", 2);
+
     private final ProductDAO productDAO;
 
     @Resource
     private WebServiceContext wsContext;
 
     public CatalogServiceImpl() {
-        this.productDAO = new ProductDAOImpl();
+        this.productDAO = ProductDAOFactory.getProductDAO();
         logger.info("CatalogService initialized with WS-Security enabled");
     }
 
@@ -44,6 +72,7 @@ public class CatalogServiceImpl implements CatalogService {
             throw new CatalogException("INVALID_INPUT", "Product ID cannot be null or empty");
         }
 
+        GET_PRODUCT_BY_ID.enter();
         try {
             Product product = productDAO.findById(productId);
             if (product == null) {
@@ -57,6 +86,59 @@ public class CatalogServiceImpl implements CatalogService {
         } catch (Exception e) {
             logger.error("Error getting product by ID: {}", productId, e);
             throw new CatalogException("DATABASE_ERROR", "Failed to retrieve product", e);
+        } finally {
+            GET_PRODUCT_BY_ID.exit();
+        }
+    }
+
+    @Override
+    public ProductBatchResult getProductsByIds(List<String> productIds) throws CatalogException {
+        String authenticatedUser = getAuthenticatedUser();
+
+        if (productIds == null || productIds.isEmpty()) {
+            throw new CatalogException("INVALID_INPUT", "Product ID list cannot be null or empty");
+        }
+
+        if (productIds.size() > MAX_BATCH_SIZE) {
+            throw new CatalogException("INVALID_INPUT",
+                    "At most " + MAX_BATCH_SIZE + " product IDs can be requested at once");
+        }
+
+        // Keep the caller's order and drop duplicates
+        Set<String> requestedIds = new LinkedHashSet<>();
+        for (String productId : productIds) {
+            if (productId == null || productId.trim().isEmpty()) {
+                throw new CatalogException("INVALID_INPUT", "Product ID cannot be null or empty");
+            }
+            requestedIds.add(productId);
+        }
+
+        logger.info("User {} requesting {} products by ID", authenticatedUser, requestedIds.size());
+
+        GET_PRODUCTS_BY_IDS.enter();
+        try {
+            Map<String, Product> productsById = new HashMap<>();
+            for (Product product : productDAO.findByIds(new ArrayList<>(requestedIds))) {
+                productsById.put(product.getProductId(), product);
+            }
+
+            ProductBatchResult result = new ProductBatchResult();
+            for (String productId : requestedIds) {
+                Product product = productsById.get(productId);
+                if (product != null) {
+                    result.getProducts().add(product);
+                } else {
+                    result.getMissingProductIds().add(productId);
+                }
+            }
+            logger.info("Found {} of {} products for user {}",
+                    result.getProducts().size(), requestedIds.size(), authenticatedUser);
+            return result;
+        } catch (Exception e) {
+            logger.error("Error getting products by IDs", e);
+            throw new CatalogException("DATABASE_ERROR", "Failed to retrieve products", e);
+        } finally {
+            GET_PRODUCTS_BY_IDS.exit();
         }
     }
 
@@ -65,17 +147,124 @@ public class CatalogServiceImpl implements CatalogService {
         String authenticatedUser = getAuthenticatedUser();
         logger.info("User {} searching products", authenticatedUser);
 
-        if (criteria == null) {
-            throw new CatalogException("INVALID_INPUT", "Search criteria cannot be null");
-        }
+        validateSearchCriteria(criteria);
 
+        SEARCH_PRODUCTS.enter();
         try {
+            addKeywordAlternatives(criteria);
             List<Product> products = productDAO.search(criteria);
             logger.info("Found {} products for user {}", products.size(), authenticatedUser);
             return products;
+        } catch (IllegalArgumentException e) {
+            throw new CatalogException("INVALID_INPUT", e.getMessage());
         } catch (Exception e) {
             logger.error("Error searching products", e);
             throw new CatalogException("DATABASE_ERROR", "Failed to search products", e);
+        } finally {
+            SEARCH_PRODUCTS.exit();
+        }
+    }
+
+    @Override
+    public ProductPage searchProductsPage(SearchCriteria criteria) throws CatalogException {
+        String authenticatedUser = getAuthenticatedUser();
+        logger.info("User {} searching products (paged)", authenticatedUser);
+
+        validateSearchCriteria(criteria);
+
+        SEARCH_PRODUCTS_PAGE.enter();
+        try {
+            addKeywordAlternatives(criteria);
+            // Structured searches page through the in-memory snapshot; text searches need PostgreSQL
+            FacetedSearch facetedSearch = FacetedSearch.getInstance();
+            ProductPage page = facetedSearch.canSearch(criteria)
+                    ? facetedSearch.searchPage(criteria) : productDAO.searchPage(criteria);
+            logger.info("Found {} products for user {}, more pages: {}",
+                    page.getProducts().size() + page.getSummaries().size(),
+                    authenticatedUser, page.getContinuationToken() != null);
+            return page;
+        } catch (IllegalArgumentException e) {
+            throw new CatalogException("INVALID_INPUT", e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error searching products", e);
+            throw new CatalogException("DATABASE_ERROR", "Failed to search products", e);
+        } finally {
+            SEARCH_PRODUCTS_PAGE.exit();
+        }
+    }
+
+    @Override
+    public SearchFacets getSearchFacets(SearchCriteria criteria) throws CatalogException {
+        String authenticatedUser = getAuthenticatedUser();
+        logger.info("User {} requesting search facets", authenticatedUser);
+
+        if (criteria == null) {
+            throw new CatalogException("INVALID_INPUT", "Search criteria cannot be null");
+        }
+
+        GET_SEARCH_FACETS.enter();
+        try {
+            FacetedSearch facetedSearch = FacetedSearch.getInstance();
+            if (!facetedSearch.isReady()) {
+                throw new CatalogException("SERVICE_BUSY", "Search facets are still loading, retry shortly");
+            }
+            addKeywordAlternatives(criteria);
+            SearchFacets facets = facetedSearch.facets(criteria);
+            if (facets == null) {
+                throw new CatalogException("DATABASE_ERROR", "Failed to count search facets");
+            }
+            logger.info("Counted {} matching products for user {}", facets.getTotalMatches(), authenticatedUser);
+            return facets;
+        } catch (CatalogException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("Error counting search facets", e);
+            throw new CatalogException("DATABASE_ERROR", "Failed to count search facets", e);
+        } finally {
+            GET_SEARCH_FACETS.exit();
+        }
+    }
+
+    @Override
+    public List<Suggestion> autocomplete(String prefix, int maxResults) throws CatalogException {
+        // Called on every keystroke, so kept out of the INFO log
+        String authenticatedUser = getAuthenticatedUser();
+        logger.debug("User {} requesting suggestions for prefix: {}", authenticatedUser, prefix);
+
+        if (prefix == null || prefix.trim().isEmpty()) {
+            throw new CatalogException("INVALID_INPUT", "Prefix cannot be null or empty");
+        }
+
+        if (maxResults <= 0) {
+            throw new CatalogException("INVALID_INPUT", "maxResults must be greater than zero");
+        }
+
+        AUTOCOMPLETE.enter();
+        try {
+            ProductSuggester suggester = ProductSuggester.getInstance();
+            int limit = Math.min(maxResults, suggester.getMaxSuggestions());
+            List<Suggestion> suggestions = new ArrayList<>();
+            if (suggester.isReady()) {
+                for (AutocompleteIndex.Entry entry : suggester.suggest(prefix, limit)) {
+                    suggestions.add(new Suggestion(entry.getProductId(), entry.getText(), entry.getField().name()));
+                }
+                return suggestions;
+            }
+
+            // Index still building: answer from the full-text search instead
+            SearchCriteria criteria = new SearchCriteria();
+            criteria.setKeyword(prefix);
+            criteria.setSummaryOnly(true);
+            criteria.setMaxResults(limit);
+            for (ProductSummary summary : productDAO.searchPage(criteria).getSummaries()) {
+                suggestions.add(new Suggestion(summary.getProductId(), summary.getTitle(), "TITLE"));
+            }
+            return suggestions;
+        } catch (Exception e) {
+            logger.error("Error building suggestions for prefix: {}", prefix, e);
+            throw new CatalogException("DATABASE_ERROR", "Failed to build suggestions", e);
+        } finally {
+            AUTOCOMPLETE.exit();
         }
     }
 
@@ -93,6 +282,7 @@ public class CatalogServiceImpl implements CatalogService {
             throw new CatalogException("INVALID_INPUT", "Quantity must be greater than zero");
         }
 
+        GET_PRODUCT_PRICE.enter();
         try {
             Product product = productDAO.findById(productId);
             if (product == null) {
@@ -101,6 +291,7 @@ public class CatalogServiceImpl implements CatalogService {
             }
 
             PriceQuote quote = new PriceQuote(productId, product.getPrice(), quantity);
+            quote.setCurrency(product.getCurrency());
             logger.info("Price quote generated for user {}: total={}",
                     authenticatedUser, quote.getTotal());
             return quote;
@@ -109,6 +300,80 @@ public class CatalogServiceImpl implements CatalogService {
         } catch (Exception e) {
             logger.error("Error generating price quote", e);
             throw new CatalogException("CALCULATION_ERROR", "Failed to calculate price", e);
+        } finally {
+            GET_PRODUCT_PRICE.exit();
+        }
+    }
+
+    @Override
+    public CartQuote getCartQuote(List<CartLine> lines) throws CatalogException {
+        String authenticatedUser = getAuthenticatedUser();
+
+        if (lines == null || lines.isEmpty()) {
+            throw new CatalogException("INVALID_INPUT", "Cart cannot be null or empty");
+        }
+
+        if (lines.size() > MAX_BATCH_SIZE) {
+            throw new CatalogException("INVALID_INPUT",
+                    "At most " + MAX_BATCH_SIZE + " cart lines can be quoted at once");
+        }
+
+        Set<String> productIds = new LinkedHashSet<>();
+        for (CartLine line : lines) {
+            if (line == null || line.getProductId() == null || line.getProductId().trim().isEmpty()) {
+                throw new CatalogException("INVALID_INPUT", "Product ID cannot be null or empty");
+            }
+            if (line.getQuantity() <= 0) {
+                throw new CatalogException("INVALID_INPUT", "Quantity must be greater than zero");
+            }
+            productIds.add(line.getProductId());
+        }
+
+        logger.info("User {} requesting cart quote for {} lines", authenticatedUser, lines.size());
+
+        GET_CART_QUOTE.enter();
+        try {
+            // One query for every distinct product in the cart
+            Map<String, Product> products = new HashMap<>();
+            for (Product product : productDAO.findByIds(new ArrayList<>(productIds))) {
+                products.put(product.getProductId(), product);
+            }
+
+            if (products.size() < productIds.size()) {
+                productIds.removeAll(products.keySet());
+                throw new CatalogException("PRODUCT_NOT_FOUND",
+                        "Products not found: " + String.join(", ", productIds));
+            }
+
+            // The totals add prices up, so every line must be priced in the same currency
+            Set<String> currencies = new TreeSet<>();
+            for (Product product : products.values()) {
+                currencies.add(String.valueOf(product.getCurrency()));
+            }
+            if (currencies.size() > 1) {
+                throw new CatalogException("INVALID_INPUT",
+                        "Cart mixes products priced in different currencies: " + String.join(", ", currencies));
+            }
+            String currency = products.values().iterator().next().getCurrency();
+
+            CartQuote quote = new CartQuote(currency,
+                    new Date(System.currentTimeMillis() + PriceQuote.VALIDITY_MILLIS));
+            for (CartLine line : lines) {
+                Product product = products.get(line.getProductId());
+                PriceQuote linePrice = new PriceQuote(line.getProductId(), product.getPrice(),
+                        line.getQuantity(), quote.getValidUntil());
+                linePrice.setCurrency(currency);
+                quote.addLine(linePrice);
+            }
+            logger.info("Cart quote generated for user {}: total={}", authenticatedUser, quote.getTotal());
+            return quote;
+        } catch (CatalogException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("Error generating cart quote", e);
+            throw new CatalogException("CALCULATION_ERROR", "Failed to calculate cart price", e);
+        } finally {
+            GET_CART_QUOTE.exit();
         }
     }
 
@@ -121,6 +386,7 @@ public class CatalogServiceImpl implements CatalogService {
             throw new CatalogException("INVALID_INPUT", "Product ID cannot be null or empty");
         }
 
+        CHECK_INVENTORY.enter();
         try {
             InventoryStatus status = productDAO.getInventoryStatus(productId);
             if (status == null) {
@@ -133,6 +399,8 @@ public class CatalogServiceImpl implements CatalogService {
         } catch (Exception e) {
             logger.error("Error checking inventory", e);
             throw new CatalogException("DATABASE_ERROR", "Failed to check inventory", e);
+        } finally {
+            CHECK_INVENTORY.exit();
         }
     }
 
@@ -151,20 +419,9 @@ public class CatalogServiceImpl implements CatalogService {
         logger.info("User {} updating inventory for product: {}, quantity: {}, operation: {}",
                 authenticatedUser, productId, quantity, operation);
 
-        if (productId == null || productId.trim().isEmpty()) {
-            throw new CatalogException("INVALID_INPUT", "Product ID cannot be null or empty");
-        }
-
-        if (quantity <= 0) {
-            throw new CatalogException("INVALID_INPUT", "Quantity must be greater than zero");
-        }
-
-        if (operation == null ||
-                (!operation.equals("RESERVE") && !operation.equals("RELEASE") && !operation.equals("DEDUCT"))) {
-            throw new CatalogException("INVALID_INPUT",
-                    "Operation must be RESERVE, RELEASE, or DEDUCT");
-        }
+        validateInventoryUpdate(productId, quantity, operation);
 
+        UPDATE_INVENTORY.enter();
         try {
             boolean result = productDAO.updateInventory(productId, quantity, operation);
             if (!result) {
@@ -178,6 +435,92 @@ public class CatalogServiceImpl implements CatalogService {
         } catch (Exception e) {
             logger.error("Error updating inventory", e);
             throw new CatalogException("DATABASE_ERROR", "Failed to update inventory", e);
+        } finally {
+            UPDATE_INVENTORY.exit();
+        }
+    }
+
+    @Override
+    public BulkInventoryUpdateResult bulkUpdateInventory(List<InventoryUpdate> updates)
+            throws CatalogException {
+        String authenticatedUser = getAuthenticatedUser();
+
+        if (!hasUpdatePermission(authenticatedUser)) {
+            logger.error("User {} does not have permission to update inventory", authenticatedUser);
+            throw new CatalogException("AUTHORIZATION_ERROR",
+                    "User does not have permission to update inventory");
+        }
+
+        if (updates == null || updates.isEmpty()) {
+            throw new CatalogException("INVALID_INPUT", "Inventory update list cannot be null or empty");
+        }
+
+        if (updates.size() > MAX_BATCH_SIZE) {
+            throw new CatalogException("INVALID_INPUT",
+                    "At most " + MAX_BATCH_SIZE + " inventory updates can be applied at once");
+        }
+
+        for (InventoryUpdate update : updates) {
+            if (update == null) {
+                throw new CatalogException("INVALID_INPUT", "Inventory update cannot be null");
+            }
+            validateInventoryUpdate(update.getProductId(), update.getQuantity(), update.getOperation());
+        }
+
+        logger.info("User {} applying bulk inventory update of {} lines", authenticatedUser, updates.size());
+
+        BULK_UPDATE_INVENTORY.enter();
+        try {
+            BulkInventoryUpdateResult result = productDAO.bulkUpdateInventory(updates);
+            if (result == null) {
+                throw new CatalogException("DATABASE_ERROR", "Failed to update inventory");
+            }
+            logger.info("Bulk inventory update by user {} {}", authenticatedUser,
+                    result.isCommitted() ? "committed" : "rolled back");
+            return result;
+        } catch (CatalogException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("Error applying bulk inventory update", e);
+            throw new CatalogException("DATABASE_ERROR", "Failed to update inventory", e);
+        } finally {
+            BULK_UPDATE_INVENTORY.exit();
+        }
+    }
+
+    private void validateInventoryUpdate(String productId, int quantity, String operation)
+            throws CatalogException {
+        if (productId == null || productId.trim().isEmpty()) {
+            throw new CatalogException("INVALID_INPUT", "Product ID cannot be null or empty");
+        }
+
+        if (quantity <= 0) {
+            throw new CatalogException("INVALID_INPUT", "Quantity must be greater than zero");
+        }
+
+        if (operation == null ||
+                (!operation.equals("RESERVE") && !operation.equals("RELEASE") && !operation.equals("DEDUCT"))) {
+            throw new CatalogException("INVALID_INPUT",
+                    "Operation must be RESERVE, RELEASE, or DEDUCT");
+        }
+    }
+
+    private void validateSearchCriteria(SearchCriteria criteria) throws CatalogException {
+        if (criteria == null) {
+            throw new CatalogException("INVALID_INPUT", "Search criteria cannot be null");
+        }
+
+        if (criteria.getMaxResults() <= 0 || criteria.getMaxResults() > SearchCriteria.MAX_RESULTS_LIMIT) {
+            throw new CatalogException("INVALID_INPUT",
+                    "maxResults must be between 1 and " + SearchCriteria.MAX_RESULTS_LIMIT);
+        }
+    }
+
+    // Fuzzy searches also accept the catalog words closest to each misspelled keyword word
+    private void addKeywordAlternatives(SearchCriteria criteria) {
+        if (criteria.isFuzzy() && criteria.getKeyword() != null && !criteria.getKeyword().isEmpty()) {
+            criteria.setKeywordAlternatives(KeywordCorrector.getInstance().alternatives(criteria.getKeyword()));
+            logger.debug("Fuzzy keyword '{}' also matches {}", criteria.getKeyword(), criteria.getKeywordAlternatives());
         }
     }
 
@@ -189,7 +532,9 @@ public class CatalogServiceImpl implements CatalogService {
                 return user.toString();
             }
         }
-        return "anonymous";
+        // Set by entry points without a WebServiceContext, such as CatalogRestServlet
+        String requestUser = RequestUser.current();
+        return requestUser != null ? requestUser : "anonymous";
     }
 
     private boolean hasUpdatePermission(String username) {
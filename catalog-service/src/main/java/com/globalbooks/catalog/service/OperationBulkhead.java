@@ -0,0 +1,87 @@
+package com.globalbooks.catalog.service;
+
+import com.globalbooks.catalog.config.CatalogConfig;
+import com.globalbooks.catalog.exception.CatalogException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caps how many requests of one operation can be inside the DAO at the same time, so a
+ * burst of slow calls holds a bounded share of the container threads and pooled
+ * connections instead of all of them. A caller that cannot get a permit within
+ * catalog.bulkhead.max-wait-ms is turned away with SERVICE_BUSY.
+ *
+ * Limits come from catalog.bulkhead.&lt;operation&gt;.max-concurrent; 0 means unlimited.
+ */
+public final class OperationBulkhead {
+
+    private static final Logger logger = LoggerFactory.getLogger(OperationBulkhead.class);
+    private static final long MAX_WAIT_MILLIS = CatalogConfig.getLong("catalog.bulkhead.max-wait-ms", 50);
+
+    private final String operation;
+    private final int maxConcurrent;
+    private final Semaphore permits;
+    private final LongAdder rejected = new LongAdder();
+
+    private OperationBulkhead(String operation, int maxConcurrent) {
+        this.operation = operation;
+        this.maxConcurrent = maxConcurrent;
+        this.permits = maxConcurrent > 0 ? new Semaphore(maxConcurrent) : null;
+    }
+
+    public static OperationBulkhead forOperation(String operation, int defaultMaxConcurrent) {
+        int maxConcurrent = CatalogConfig.getInt(
+                "catalog.bulkhead." + operation + ".max-concurrent", defaultMaxConcurrent);
+        if (maxConcurrent > 0) {
+            logger.info("Operation {} limited to {} concurrent calls", operation, maxConcurrent);
+        }
+        return new OperationBulkhead(operation, maxConcurrent);
+    }
+
+    /**
+     * Takes a permit; every successful call must be paired with {@link #exit()}.
+     */
+    public void enter() throws CatalogException {
+        if (permits == null) {
+            return;
+        }
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(MAX_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            rejected.increment();
+            logger.warn("Rejected {} call, {} already in progress", operation, maxConcurrent);
+            throw new CatalogException("SERVICE_BUSY",
+                    "Too many concurrent " + operation + " requests, retry later");
+        }
+    }
+
+    public void exit() {
+        if (permits != null) {
+            permits.release();
+        }
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int getActiveCalls() {
+        return permits != null ? maxConcurrent - permits.availablePermits() : 0;
+    }
+
+    public long getRejectedCalls() {
+        return rejected.sum();
+    }
+}
@@ -0,0 +1,106 @@
+package com.globalbooks.catalog.util;
+
+import com.globalbooks.catalog.dao.ProductDAO;
+import com.globalbooks.catalog.model.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.text.SimpleDateFormat;
+
+/**
+ * Writes the full catalog as CSV, one row at a time, straight from the database cursor
+ * to the file so heap use stays constant regardless of catalog size.
+ */
+public class CatalogExporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogExporter.class);
+
+    private static final String HEADER = "product_id,title,author,isbn,description,category," +
+            "price,currency,stock_quantity,publish_date,image_url";
+
+    private final ProductDAO productDAO;
+
+    public CatalogExporter(ProductDAO productDAO) {
+        this.productDAO = productDAO;
+    }
+
+    /**
+     * Exports to a temporary file next to the target and moves it into place only when
+     * complete, so readers never see a partial feed.
+     */
+    public long exportCsv(Path target) throws IOException {
+        Path directory = target.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(directory, target.getFileName().toString(), ".part");
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
+
+        try {
+            long count;
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                writer.write(HEADER);
+                writer.newLine();
+
+                count = productDAO.streamAll(product -> {
+                    try {
+                        writeRow(writer, product, dateFormat);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+
+            if (count < 0) {
+                throw new IOException("Catalog export failed, see previous errors");
+            }
+
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("Exported {} products to {}", count, target);
+            return count;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void writeRow(BufferedWriter writer, Product product, SimpleDateFormat dateFormat)
+            throws IOException {
+        writer.write(escape(product.getProductId()));
+        writer.write(',');
+        writer.write(escape(product.getTitle()));
+        writer.write(',');
+        writer.write(escape(product.getAuthor()));
+        writer.write(',');
+        writer.write(escape(product.getIsbn()));
+        writer.write(',');
+        writer.write(escape(product.getDescription()));
+        writer.write(',');
+        writer.write(escape(product.getCategory()));
+        writer.write(',');
+        writer.write(product.getPrice() != null ? product.getPrice().toPlainString() : "");
+        writer.write(',');
+        writer.write(escape(product.getCurrency()));
+        writer.write(',');
+        writer.write(Integer.toString(product.getStockQuantity()));
+        writer.write(',');
+        writer.write(product.getPublishDate() != null ? dateFormat.format(product.getPublishDate()) : "");
+        writer.write(',');
+        writer.write(escape(product.getImageUrl()));
+        writer.newLine();
+    }
+
+    // RFC 4180 quoting: only fields containing separators, quotes or line breaks are quoted
+    static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+                && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,611 @@
+package com.globalbooks.catalog.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.globalbooks.catalog.config.CatalogConfig;
+import com.globalbooks.catalog.dao.CachingProductDAO;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads a publisher feed into the products table in one transaction. The feed is parsed
+ * on the calling thread, validated and encoded in parallel chunks, streamed with COPY into
+ * a temporary staging table and merged with a single INSERT ... ON CONFLICT, so a feed
+ * costs one connection and a handful of statements whatever its size.
+ *
+ * Feeds are CSV with the {@link CatalogExporter} header (columns in any order, unknown ones
+ * ignored) or JSON, either an array of Product objects or one object per line. New products
+ * get the feed's stock; existing ones keep theirs, since stock is moved by inventory updates
+ * and the reservation ledger. Records that fail validation, repeat a product ID later in the
+ * feed or take an ISBN already in use are skipped and listed in the rejects report as
+ * record,product_id,reason, records counting from 1 after any header.
+ *
+ * Imported rows don't notify one by one: once the import is committed, and the read replica
+ * has replayed it, a single product_changes notification clears every node's cache.
+ */
+public class CatalogImporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogImporter.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+
+    private static final String[] COLUMNS = {"product_id", "title", "author", "isbn", "description",
+            "category", "price", "currency", "stock_quantity", "publish_date", "image_url"};
+    private static final String[] JSON_FIELDS = {"productId", "title", "author", "isbn", "description",
+            "category", "price", "currency", "stockQuantity", "publishDate", "imageUrl"};
+    // Limits from schema.sql, 0 for none
+    private static final int[] MAX_LENGTHS = {50, 255, 255, 20, 0, 100, 0, 3, 0, 0, 500};
+    private static final boolean[] REQUIRED = {true, true, true, true, false, true, true, false, false, false, false};
+    private static final int PRODUCT_ID = 0;
+    private static final int PRICE = 6;
+    private static final int CURRENCY = 7;
+    private static final int STOCK_QUANTITY = 8;
+    private static final int PUBLISH_DATE = 9;
+    private static final BigDecimal MAX_PRICE = new BigDecimal("99999999.99");
+
+    private static final String STAGING_SQL = "CREATE TEMP TABLE product_import (record BIGINT, " +
+            "product_id TEXT, title TEXT, author TEXT, isbn TEXT, description TEXT, category TEXT, " +
+            "price NUMERIC(10, 2), currency TEXT, stock_quantity INTEGER, publish_date DATE, " +
+            "image_url TEXT) ON COMMIT DROP";
+
+    // The last record of a product wins, the first record of an ISBN wins
+    private static final String REJECT_REPEATED_IDS_SQL = "WITH rejected AS (DELETE FROM product_import " +
+            "WHERE record IN (SELECT record FROM (SELECT record, row_number() OVER " +
+            "(PARTITION BY product_id ORDER BY record DESC) AS n FROM product_import) ranked WHERE n > 1) " +
+            "RETURNING record, product_id) SELECT record, product_id FROM rejected ORDER BY record";
+
+    private static final String REJECT_REPEATED_ISBNS_SQL = "WITH rejected AS (DELETE FROM product_import " +
+            "WHERE record IN (SELECT record FROM (SELECT record, row_number() OVER " +
+            "(PARTITION BY isbn ORDER BY record) AS n FROM product_import) ranked WHERE n > 1) " +
+            "RETURNING record, product_id) SELECT record, product_id FROM rejected ORDER BY record";
+
+    private static final String REJECT_TAKEN_ISBNS_SQL = "WITH rejected AS (DELETE FROM product_import s " +
+            "USING products p WHERE p.isbn = s.isbn AND p.product_id <> s.product_id " +
+            "RETURNING s.record, s.product_id, p.product_id AS owner) " +
+            "SELECT record, product_id, owner FROM rejected ORDER BY record";
+
+    // Re-sent products are dropped with one hash join instead of a conflict check each, and
+    // so never rewrite their rows and indexes
+    private static final String DROP_UNCHANGED_SQL = "DELETE FROM product_import s USING products p " +
+            "WHERE p.product_id = s.product_id AND (p.title, p.author, p.isbn, p.description, p.category, " +
+            "p.price, p.currency, p.publish_date, p.image_url) IS NOT DISTINCT FROM (s.title, s.author, " +
+            "s.isbn, s.description, s.category, s.price, COALESCE(s.currency, 'USD'), s.publish_date, s.image_url)";
+
+    // The WHERE clause still skips products changed to match the feed since that join
+    private static final String UPSERT_SQL = "WITH upserted AS (INSERT INTO products (product_id, title, " +
+            "author, isbn, description, category, price, currency, stock_quantity, publish_date, image_url) " +
+            "SELECT product_id, title, author, isbn, description, category, price, " +
+            "COALESCE(currency, 'USD'), COALESCE(stock_quantity, 0), publish_date, image_url " +
+            "FROM product_import ORDER BY product_id " +
+            "ON CONFLICT (product_id) DO UPDATE SET title = EXCLUDED.title, author = EXCLUDED.author, " +
+            "isbn = EXCLUDED.isbn, description = EXCLUDED.description, category = EXCLUDED.category, " +
+            "price = EXCLUDED.price, currency = EXCLUDED.currency, publish_date = EXCLUDED.publish_date, " +
+            "image_url = EXCLUDED.image_url " +
+            "WHERE (products.title, products.author, products.isbn, products.description, products.category, " +
+            "products.price, products.currency, products.publish_date, products.image_url) IS DISTINCT FROM " +
+            "(EXCLUDED.title, EXCLUDED.author, EXCLUDED.isbn, EXCLUDED.description, EXCLUDED.category, " +
+            "EXCLUDED.price, EXCLUDED.currency, EXCLUDED.publish_date, EXCLUDED.image_url) " +
+            "RETURNING xmax = 0 AS inserted) " +
+            "SELECT count(*) FILTER (WHERE inserted), count(*) FILTER (WHERE NOT inserted) FROM upserted";
+
+    private final CachingProductDAO productCache;
+    private final int chunkSize;
+    private final int threads;
+    private final long replicaWaitMillis;
+
+    public CatalogImporter(CachingProductDAO productCache) {
+        this.productCache = productCache;
+        this.chunkSize = CatalogConfig.getInt("catalog.import.chunk-size", 2000);
+        this.threads = CatalogConfig.getInt("catalog.import.threads", Runtime.getRuntime().availableProcessors());
+        this.replicaWaitMillis = CatalogConfig.getLong("catalog.replica.read-your-writes-ms", 5000);
+    }
+
+    public Summary importCsv(Path feed, Path rejects) throws IOException, SQLException {
+        try (Reader reader = Files.newBufferedReader(feed, StandardCharsets.UTF_8)) {
+            return load(new CsvRecords(reader), feed, rejects);
+        }
+    }
+
+    public Summary importJson(Path feed, Path rejects) throws IOException, SQLException {
+        try (Reader reader = Files.newBufferedReader(feed, StandardCharsets.UTF_8)) {
+            return load(new JsonRecords(reader), feed, rejects);
+        }
+    }
+
+    private Summary load(RecordSource source, Path feed, Path rejectsFile) throws IOException, SQLException {
+        long start = System.currentTimeMillis();
+        Summary summary = new Summary();
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService validators = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "catalog-import-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try (Connection conn = DatabaseConnection.openDedicatedConnection();
+             BufferedWriter rejects = Files.newBufferedWriter(rejectsFile, StandardCharsets.UTF_8)) {
+            rejects.write("record,product_id,reason");
+            rejects.newLine();
+
+            conn.setAutoCommit(false);
+            try {
+                try (Statement stmt = conn.createStatement()) {
+                    // Read by notify_product_change() in schema.sql
+                    stmt.execute("SET LOCAL catalog.bulk_import = 'on'");
+                    stmt.execute(STAGING_SQL);
+                }
+                CopyIn copy = conn.unwrap(PGConnection.class).getCopyAPI().copyIn("COPY product_import FROM STDIN");
+                try {
+                    stream(source, validators, copy, rejects, summary);
+                    copy.endCopy();
+                    summary.copyMillis = System.currentTimeMillis() - start;
+                } finally {
+                    if (copy.isActive()) {
+                        copy.cancelCopy();
+                    }
+                }
+                rejectConflicts(conn, rejects, summary);
+                upsert(conn, summary);
+                conn.commit();
+            } catch (IOException | SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            }
+
+            awaitReplica(conn);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("SELECT pg_notify('product_changes', " +
+                        "json_build_object('product_id', NULL, 'change', 'IMPORT')::text)");
+            }
+            conn.commit();
+        } finally {
+            validators.shutdownNow();
+        }
+        // Also covers nodes running without the notification listener
+        productCache.invalidateAll();
+
+        summary.elapsedMillis = System.currentTimeMillis() - start;
+        logger.info("Imported {}: {} records, {} inserted, {} updated, {} unchanged, {} rejected in {} ms " +
+                "({} ms streaming)", feed, summary.records, summary.inserted, summary.updated,
+                summary.getUnchanged(), summary.rejected, summary.elapsedMillis, summary.copyMillis);
+        return summary;
+    }
+
+    // Chunks are encoded in parallel but written to COPY in feed order
+    private void stream(RecordSource source, ExecutorService validators, CopyIn copy,
+                        BufferedWriter rejects, Summary summary) throws IOException, SQLException {
+        Deque<Future<Chunk>> inFlight = new ArrayDeque<>();
+        List<FeedRecord> records = new ArrayList<>(chunkSize);
+        long firstRecord = 1;
+        FeedRecord record;
+        while ((record = source.next()) != null) {
+            records.add(record);
+            if (records.size() == chunkSize) {
+                inFlight.add(validators.submit(new Chunk(firstRecord, records)));
+                firstRecord += records.size();
+                records = new ArrayList<>(chunkSize);
+                if (inFlight.size() > threads * 2) {
+                    write(inFlight.removeFirst(), copy, rejects, summary);
+                }
+            }
+        }
+        if (!records.isEmpty()) {
+            inFlight.add(validators.submit(new Chunk(firstRecord, records)));
+        }
+        while (!inFlight.isEmpty()) {
+            write(inFlight.removeFirst(), copy, rejects, summary);
+        }
+    }
+
+    private static void write(Future<Chunk> pending, CopyIn copy, BufferedWriter rejects, Summary summary)
+            throws IOException, SQLException {
+        Chunk chunk;
+        try {
+            chunk = pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to encode import chunk", e.getCause());
+        }
+        copy.writeToCopy(chunk.copyData, 0, chunk.copyData.length);
+        for (String reject : chunk.rejects) {
+            rejects.write(reject);
+            rejects.newLine();
+        }
+        summary.records += chunk.records.size();
+        summary.rejected += chunk.rejects.size();
+    }
+
+    private static void rejectConflicts(Connection conn, BufferedWriter rejects, Summary summary)
+            throws IOException, SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery(REJECT_REPEATED_IDS_SQL)) {
+                while (rs.next()) {
+                    reject(rejects, summary, rs.getLong(1), rs.getString(2), "Product ID repeated later in the feed");
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery(REJECT_REPEATED_ISBNS_SQL)) {
+                while (rs.next()) {
+                    reject(rejects, summary, rs.getLong(1), rs.getString(2), "ISBN used earlier in the feed");
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery(REJECT_TAKEN_ISBNS_SQL)) {
+                while (rs.next()) {
+                    reject(rejects, summary, rs.getLong(1), rs.getString(2),
+                            "ISBN already used by product " + rs.getString(3));
+                }
+            }
+        }
+    }
+
+    private static void reject(BufferedWriter rejects, Summary summary, long record, String productId,
+                               String reason) throws IOException {
+        rejects.write(rejectLine(record, productId, reason));
+        rejects.newLine();
+        summary.rejected++;
+    }
+
+    private static void upsert(Connection conn, Summary summary) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate(DROP_UNCHANGED_SQL);
+            try (ResultSet rs = stmt.executeQuery(UPSERT_SQL)) {
+                rs.next();
+                summary.inserted = rs.getLong(1);
+                summary.updated = rs.getLong(2);
+            }
+        }
+    }
+
+    // Caches refilled from a replica that hasn't replayed the import would keep the old rows
+    private void awaitReplica(Connection primary) {
+        if (!DatabaseConnection.hasReplica()) {
+            return;
+        }
+        long deadline = System.currentTimeMillis() + replicaWaitMillis;
+        try (Statement stmt = primary.createStatement();
+             ResultSet lsn = stmt.executeQuery("SELECT pg_current_wal_lsn()::text");
+             Connection replica = DatabaseConnection.getReadConnection();
+             PreparedStatement replayed = replica.prepareStatement(
+                     "SELECT pg_last_wal_replay_lsn() IS NULL OR pg_last_wal_replay_lsn() >= ?::pg_lsn")) {
+            lsn.next();
+            replayed.setString(1, lsn.getString(1));
+            while (System.currentTimeMillis() < deadline) {
+                try (ResultSet rs = replayed.executeQuery()) {
+                    if (rs.next() && rs.getBoolean(1)) {
+                        return;
+                    }
+                }
+                Thread.sleep(50);
+            }
+            logger.warn("Replica has not replayed the import after {} ms, notifying anyway", replicaWaitMillis);
+        } catch (SQLException e) {
+            logger.warn("Could not check replica replay of the import, notifying anyway: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String rejectLine(long record, String productId, String reason) {
+        return record + "," + CatalogExporter.escape(productId) + "," + CatalogExporter.escape(reason);
+    }
+
+    /**
+     * Counts of one import. Unchanged products were in the feed but already matched it.
+     */
+    public static final class Summary {
+        private long records;
+        private long inserted;
+        private long updated;
+        private long rejected;
+        private long elapsedMillis;
+        private long copyMillis;
+
+        public long getRecords() { return records; }
+        public long getInserted() { return inserted; }
+        public long getUpdated() { return updated; }
+        public long getUnchanged() { return records - rejected - inserted - updated; }
+        public long getRejected() { return rejected; }
+        public long getElapsedMillis() { return elapsedMillis; }
+    }
+
+    // Values in COLUMNS order with empty ones as null, or the reason the record can't be read
+    static final class FeedRecord {
+        final String[] values;
+        final String error;
+
+        private FeedRecord(String[] values, String error) {
+            this.values = values;
+            this.error = error;
+        }
+    }
+
+    interface RecordSource {
+        /**
+         * The next record, or null at the end of the feed.
+         */
+        FeedRecord next() throws IOException;
+    }
+
+    private static final class Chunk implements Callable<Chunk> {
+        private final long firstRecord;
+        private final List<FeedRecord> records;
+        private final List<String> rejects = new ArrayList<>();
+        private byte[] copyData;
+
+        private Chunk(long firstRecord, List<FeedRecord> records) {
+            this.firstRecord = firstRecord;
+            this.records = records;
+        }
+
+        @Override
+        public Chunk call() {
+            StringBuilder copy = new StringBuilder(records.size() * 256);
+            String[] normalized = new String[COLUMNS.length];
+            for (int i = 0; i < records.size(); i++) {
+                long record = firstRecord + i;
+                FeedRecord feedRecord = records.get(i);
+                String reason = feedRecord.error != null ? feedRecord.error : validate(feedRecord.values, normalized);
+                if (reason != null) {
+                    String productId = feedRecord.values != null ? feedRecord.values[PRODUCT_ID] : null;
+                    rejects.add(rejectLine(record, productId, reason));
+                    continue;
+                }
+                copy.append(record);
+                for (String value : normalized) {
+                    copy.append('\t');
+                    appendCopyValue(copy, value);
+                }
+                copy.append('\n');
+            }
+            copyData = copy.toString().getBytes(StandardCharsets.UTF_8);
+            return this;
+        }
+    }
+
+    // Returns why the record can't be imported, or null with its values ready for COPY
+    static String validate(String[] values, String[] normalized) {
+        for (int column = 0; column < COLUMNS.length; column++) {
+            String value = values[column];
+            if (value == null) {
+                if (REQUIRED[column]) {
+                    return "Missing " + COLUMNS[column];
+                }
+            } else if (value.indexOf('\u0000') >= 0) {
+                return COLUMNS[column] + " contains a NUL character";
+            } else if (MAX_LENGTHS[column] > 0 && value.codePointCount(0, value.length()) > MAX_LENGTHS[column]) {
+                return COLUMNS[column] + " is longer than " + MAX_LENGTHS[column] + " characters";
+            }
+            normalized[column] = value;
+        }
+
+        try {
+            BigDecimal price = new BigDecimal(values[PRICE].trim());
+            if (price.signum() < 0 || price.compareTo(MAX_PRICE) > 0) {
+                return "price out of range";
+            }
+            if (price.stripTrailingZeros().scale() > 2) {
+                return "price has more than two decimals";
+            }
+            normalized[PRICE] = price.toPlainString();
+        } catch (NumberFormatException e) {
+            return "price is not a number";
+        }
+        if (values[CURRENCY] != null && values[CURRENCY].length() != 3) {
+            return "currency is not a three-letter code";
+        }
+        if (values[STOCK_QUANTITY] != null) {
+            try {
+                int stock = Integer.parseInt(values[STOCK_QUANTITY].trim());
+                if (stock < 0) {
+                    return "stock_quantity is negative";
+                }
+                normalized[STOCK_QUANTITY] = Integer.toString(stock);
+            } catch (NumberFormatException e) {
+                return "stock_quantity is not a whole number";
+            }
+        }
+        if (values[PUBLISH_DATE] != null) {
+            String date = values[PUBLISH_DATE].trim();
+            // JSON exports of Product carry a full timestamp
+            if (date.length() > 10 && date.charAt(10) == 'T') {
+                date = date.substring(0, 10);
+            }
+            try {
+                normalized[PUBLISH_DATE] = LocalDate.parse(date).toString();
+            } catch (DateTimeParseException e) {
+                return "publish_date is not a yyyy-MM-dd date";
+            }
+        }
+        return null;
+    }
+
+    // COPY text format: tab-separated, \N for null, backslash escapes
+    private static void appendCopyValue(StringBuilder copy, String value) {
+        if (value == null) {
+            copy.append("\\N");
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\': copy.append("\\\\"); break;
+                case '\t': copy.append("\\t"); break;
+                case '\n': copy.append("\\n"); break;
+                case '\r': copy.append("\\r"); break;
+                default: copy.append(c);
+            }
+        }
+    }
+
+    // RFC 4180, as written by CatalogExporter; blank lines are skipped
+    static final class CsvRecords implements RecordSource {
+        private final Reader reader;
+        private final char[] buffer = new char[65536];
+        private int position;
+        private int limit;
+        private final int[] columnOf;
+        private final StringBuilder field = new StringBuilder();
+
+        CsvRecords(Reader reader) throws IOException {
+            this.reader = reader;
+            List<String> header = readRecord();
+            if (header == null) {
+                throw new IOException("Feed is empty");
+            }
+            columnOf = new int[header.size()];
+            boolean[] present = new boolean[COLUMNS.length];
+            for (int i = 0; i < header.size(); i++) {
+                String name = header.get(i).trim().toLowerCase(Locale.ROOT);
+                columnOf[i] = -1;
+                for (int column = 0; column < COLUMNS.length; column++) {
+                    if (COLUMNS[column].equals(name)) {
+                        columnOf[i] = column;
+                        present[column] = true;
+                    }
+                }
+            }
+            for (int column = 0; column < COLUMNS.length; column++) {
+                if (REQUIRED[column] && !present[column]) {
+                    throw new IOException("Feed has no " + COLUMNS[column] + " column");
+                }
+            }
+        }
+
+        @Override
+        public FeedRecord next() throws IOException {
+            List<String> fields;
+            do {
+                fields = readRecord();
+            } while (fields != null && fields.size() == 1 && fields.get(0).isEmpty());
+            if (fields == null) {
+                return null;
+            }
+
+            String[] values = new String[COLUMNS.length];
+            for (int i = 0; i < fields.size() && i < columnOf.length; i++) {
+                if (columnOf[i] >= 0 && !fields.get(i).isEmpty()) {
+                    values[columnOf[i]] = fields.get(i);
+                }
+            }
+            if (fields.size() != columnOf.length) {
+                return new FeedRecord(values, "Expected " + columnOf.length + " fields, found " + fields.size());
+            }
+            return new FeedRecord(values, null);
+        }
+
+        private List<String> readRecord() throws IOException {
+            int c = read();
+            if (c < 0) {
+                return null;
+            }
+            List<String> fields = new ArrayList<>(COLUMNS.length);
+            field.setLength(0);
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c < 0) {
+                        throw new IOException("Feed ends inside a quoted field");
+                    }
+                    if (c == '"') {
+                        c = read();
+                        if (c != '"') {
+                            quoted = false;
+                            continue;
+                        }
+                    }
+                    field.append((char) c);
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n' || c == '\r' || c < 0) {
+                    if (c == '\r' && read() != '\n' && limit > 0) {
+                        position--;
+                    }
+                    fields.add(field.toString());
+                    return fields;
+                } else {
+                    field.append((char) c);
+                }
+                c = read();
+            }
+        }
+
+        private int read() throws IOException {
+            if (position == limit) {
+                limit = Math.max(reader.read(buffer, 0, buffer.length), 0);
+                position = 0;
+                if (limit == 0) {
+                    return -1;
+                }
+            }
+            return buffer[position++];
+        }
+    }
+
+    private static final class JsonRecords implements RecordSource {
+        private final JsonParser parser;
+
+        private JsonRecords(Reader reader) throws IOException {
+            this.parser = MAPPER.getFactory().createParser(reader);
+            if (parser.nextToken() == JsonToken.START_ARRAY) {
+                parser.nextToken();
+            }
+        }
+
+        @Override
+        public FeedRecord next() throws IOException {
+            JsonToken token = parser.currentToken();
+            if (token == null || token == JsonToken.END_ARRAY) {
+                return null;
+            }
+            JsonNode node = MAPPER.readTree(parser);
+            parser.nextToken();
+            if (!node.isObject()) {
+                return new FeedRecord(null, "Not a JSON object");
+            }
+
+            String[] values = new String[COLUMNS.length];
+            for (int column = 0; column < COLUMNS.length; column++) {
+                JsonNode value = node.get(JSON_FIELDS[column]);
+                if (value != null && !value.isNull()) {
+                    String text = value.isValueNode() ? value.asText() : value.toString();
+                    values[column] = text.isEmpty() ? null : text;
+                }
+            }
+            return new FeedRecord(values, null);
+        }
+    }
+}
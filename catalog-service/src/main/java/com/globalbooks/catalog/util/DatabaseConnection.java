@@ -1,5 +1,6 @@
 package com.globalbooks.catalog.util;
 
+import com.globalbooks.catalog.config.CatalogConfig;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import org.slf4j.Logger;
@@ -7,13 +8,39 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.io.InputStream;
 import java.sql.Connection;
+import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Shared Hikari pool. Besides the db.* connection settings, database.properties (or the
+ * environment, e.g. DB_POOL_MAXIMUM_SIZE) may set db.pool.maximum-size, minimum-idle,
+ * idle-timeout-ms, connection-timeout-ms, max-lifetime-ms, leak-detection-threshold-ms,
+ * report-interval-ms and metrics.sink. Setting db.replica.url adds a read-only replica pool
+ * (db.replica.username, db.replica.password, db.replica.pool.maximum-size, minimum-idle,
+ * connection-timeout-ms, retry-after-ms).
+ *
+ * Leak detection is off unless leak-detection-threshold-ms is set. Exports, the search
+ * snapshot and index scans, and COPY imports hold a connection for as long as they run,
+ * so a threshold below their duration reports them as leaks.
+ */
 public class DatabaseConnection {
 
     private static final Logger logger = LoggerFactory.getLogger(DatabaseConnection.class);
     private static HikariDataSource dataSource;
+    private static PoolMetrics metrics;
+    private static HikariDataSource replicaDataSource;
+    private static PoolMetrics replicaMetrics;
+    private static long replicaRetryMillis;
+    private static volatile long replicaRetryAt;
+    private static ScheduledExecutorService reporter;
+    private static final List<PoolMetricsSink> sinks = new CopyOnWriteArrayList<>();
 
     static {
         initializeDataSource();
@@ -23,26 +50,26 @@ public class DatabaseConnection {
         try {
             Properties props = loadProperties();
 
-            HikariConfig config = new HikariConfig();
-            config.setJdbcUrl(props.getProperty("db.url"));
-            config.setUsername(props.getProperty("db.username"));
-            config.setPassword(props.getProperty("db.password"));
-            config.setDriverClassName(props.getProperty("db.driver"));
+            long leakThreshold = longSetting(props, "db.pool.leak-detection-threshold-ms", 0);
+            metrics = new PoolMetrics(leakThreshold);
+            dataSource = createDataSource(props, "catalog-pool", props.getProperty("db.url"),
+                    props.getProperty("db.username"), props.getProperty("db.password"), "db.pool.", metrics);
 
-            // Connection pool settings
-            config.setMaximumPoolSize(10);
-            config.setMinimumIdle(5);
-            config.setIdleTimeout(300000);
-            config.setConnectionTimeout(20000);
-            config.setMaxLifetime(1200000);
-
-            // Performance settings
-            config.addDataSourceProperty("cachePrepStmts", "true");
-            config.addDataSourceProperty("prepStmtCacheSize", "250");
-            config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+            // Optional read-only replica for queries that tolerate replication lag
+            String replicaUrl = setting(props, "db.replica.url");
+            if (replicaUrl != null) {
+                replicaMetrics = new PoolMetrics(leakThreshold);
+                replicaDataSource = createDataSource(props, "catalog-replica-pool", replicaUrl,
+                        CatalogConfig.getString("db.replica.username", props.getProperty("db.replica.username",
+                                props.getProperty("db.username"))),
+                        CatalogConfig.getString("db.replica.password", props.getProperty("db.replica.password",
+                                props.getProperty("db.password"))),
+                        "db.replica.pool.", replicaMetrics);
+                replicaRetryMillis = longSetting(props, "db.replica.retry-after-ms", 10000);
+            }
 
-            dataSource = new HikariDataSource(config);
-            logger.info("Database connection pool initialized successfully");
+            addConfiguredSink(setting(props, "db.pool.metrics.sink"));
+            startReporter(longSetting(props, "db.pool.report-interval-ms", 60000));
 
         } catch (Exception e) {
             logger.error("Failed to initialize database connection pool", e);
@@ -50,6 +77,48 @@ public class DatabaseConnection {
         }
     }
 
+    // Replica pool settings (db.replica.pool.*) fall back to the primary's db.pool.* values
+    private static HikariDataSource createDataSource(Properties props, String poolName, String url,
+                                                     String username, String password, String poolPrefix,
+                                                     PoolMetrics poolMetrics) {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(url);
+        config.setUsername(username);
+        config.setPassword(password);
+        config.setDriverClassName(props.getProperty("db.driver"));
+        boolean replica = poolPrefix.startsWith("db.replica.");
+        config.setReadOnly(replica);
+
+        // Connection pool settings
+        config.setPoolName(poolName);
+        config.setMaximumPoolSize(intSetting(props, poolPrefix + "maximum-size",
+                intSetting(props, "db.pool.maximum-size", 10)));
+        config.setMinimumIdle(intSetting(props, poolPrefix + "minimum-idle",
+                intSetting(props, "db.pool.minimum-idle", 5)));
+        config.setIdleTimeout(longSetting(props, "db.pool.idle-timeout-ms", 300000));
+        // Reads fall back to the primary when the replica is down, so give up on it quickly
+        config.setConnectionTimeout(longSetting(props, poolPrefix + "connection-timeout-ms",
+                replica ? 2000 : longSetting(props, "db.pool.connection-timeout-ms", 20000)));
+        if (replica) {
+            config.setInitializationFailTimeout(-1);
+        }
+        config.setMaxLifetime(longSetting(props, "db.pool.max-lifetime-ms", 1200000));
+
+        // Hikari logs the borrower's stack trace for every connection held this long; 0 is off
+        config.setLeakDetectionThreshold(longSetting(props, "db.pool.leak-detection-threshold-ms", 0));
+        config.setMetricsTrackerFactory(poolMetrics);
+
+        // Performance settings
+        config.addDataSourceProperty("cachePrepStmts", "true");
+        config.addDataSourceProperty("prepStmtCacheSize", "250");
+        config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+
+        HikariDataSource pool = new HikariDataSource(config);
+        logger.info("Database connection pool {} initialized successfully (maximumPoolSize={}, minimumIdle={})",
+                poolName, config.getMaximumPoolSize(), config.getMinimumIdle());
+        return pool;
+    }
+
     private static Properties loadProperties() throws IOException {
         Properties props = new Properties();
         try (InputStream input = DatabaseConnection.class.getClassLoader()
@@ -62,14 +131,184 @@ public class DatabaseConnection {
         return props;
     }
 
+    // Pool settings can be overridden per deployment, e.g. DB_POOL_MAXIMUM_SIZE=20
+    private static String setting(Properties props, String key) {
+        return CatalogConfig.getString(key, props.getProperty(key));
+    }
+
+    private static int intSetting(Properties props, String key, int defaultValue) {
+        String value = setting(props, key);
+        try {
+            return value != null ? Integer.parseInt(value.trim()) : defaultValue;
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid integer value '{}' for {}, using {}", value, key, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    private static long longSetting(Properties props, String key, long defaultValue) {
+        String value = setting(props, key);
+        try {
+            return value != null ? Long.parseLong(value.trim()) : defaultValue;
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid long value '{}' for {}, using {}", value, key, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    private static void addConfiguredSink(String sinkClass) {
+        if (sinkClass == null || sinkClass.trim().isEmpty()) {
+            return;
+        }
+        try {
+            addMetricsSink((PoolMetricsSink) Class.forName(sinkClass.trim())
+                    .getDeclaredConstructor().newInstance());
+            logger.info("Publishing connection pool metrics to {}", sinkClass);
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            logger.warn("Unable to create pool metrics sink {}", sinkClass, e);
+        }
+    }
+
+    private static void startReporter(long intervalMillis) {
+        if (intervalMillis <= 0) {
+            return;
+        }
+        reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "db-pool-report");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(DatabaseConnection::report, intervalMillis, intervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    // A connection held past the leak threshold is either a leak or a query that needs looking at
+    private static void report() {
+        report(metrics);
+        if (replicaMetrics != null) {
+            report(replicaMetrics);
+        }
+    }
+
+    private static void report(PoolMetrics poolMetrics) {
+        try {
+            PoolMetricsSnapshot snapshot = poolMetrics.rollInterval();
+            if (snapshot.getLeakSuspects() > 0) {
+                logger.warn("Connection pool: {} connections held longer than {} ms; {}",
+                        snapshot.getLeakSuspects(), snapshot.getLeakThresholdMillis(), snapshot);
+            } else {
+                logger.info("Connection pool: {}", snapshot);
+            }
+            for (PoolMetricsSink sink : sinks) {
+                sink.publish(snapshot);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Connection pool report failed", e);
+        }
+    }
+
+    public static void addMetricsSink(PoolMetricsSink sink) {
+        sinks.add(sink);
+    }
+
+    public static void removeMetricsSink(PoolMetricsSink sink) {
+        sinks.remove(sink);
+    }
+
+    /**
+     * Metrics of the primary pool for the report interval in progress.
+     */
+    public static PoolMetricsSnapshot getPoolMetrics() {
+        return metrics.snapshot();
+    }
+
+    /**
+     * Metrics of the read replica pool, or null when no replica is configured.
+     */
+    public static PoolMetricsSnapshot getReplicaPoolMetrics() {
+        return replicaMetrics != null ? replicaMetrics.snapshot() : null;
+    }
+
+    public static boolean hasReplica() {
+        return replicaDataSource != null;
+    }
+
+    /**
+     * A connection for reads that can tolerate replication lag: the replica when one is
+     * configured and reachable, the primary otherwise.
+     */
+    public static Connection getReadConnection() throws SQLException {
+        if (replicaDataSource == null || System.currentTimeMillis() < replicaRetryAt) {
+            return getConnection();
+        }
+        try {
+            return replicaMetrics.checkedOut(replicaDataSource.getConnection());
+        } catch (SQLException e) {
+            // Don't make every read wait out the connection timeout while the replica is down
+            replicaRetryAt = System.currentTimeMillis() + replicaRetryMillis;
+            logger.warn("Read replica unavailable, reading from the primary for {} ms: {}",
+                    replicaRetryMillis, e.getMessage());
+            return getConnection();
+        }
+    }
+
     public static Connection getConnection() throws SQLException {
         if (dataSource == null) {
             throw new SQLException("DataSource is not initialized");
         }
-        return dataSource.getConnection();
+        return metrics.checkedOut(dataSource.getConnection());
+    }
+
+    /**
+     * A connection to the primary outside the pool, for long-lived sessions such as LISTEN
+     * that would otherwise hold a pooled connection forever. The caller closes it.
+     */
+    public static Connection openDedicatedConnection() throws SQLException {
+        if (dataSource == null) {
+            throw new SQLException("DataSource is not initialized");
+        }
+        return DriverManager.getConnection(dataSource.getJdbcUrl(), dataSource.getUsername(),
+                dataSource.getPassword());
+    }
+
+    /**
+     * Opens connections up to each pool's minimumIdle at once instead of waiting for
+     * Hikari to add them in the background. Returns the primary pool's total connections.
+     */
+    public static int fillPool() throws SQLException {
+        List<Connection> held = new ArrayList<>();
+        try {
+            while (held.size() < dataSource.getMinimumIdle()) {
+                held.add(getConnection());
+            }
+        } finally {
+            for (Connection conn : held) {
+                conn.close();
+            }
+        }
+        if (replicaDataSource != null) {
+            held.clear();
+            try {
+                while (held.size() < replicaDataSource.getMinimumIdle()) {
+                    held.add(replicaMetrics.checkedOut(replicaDataSource.getConnection()));
+                }
+            } finally {
+                for (Connection conn : held) {
+                    conn.close();
+                }
+            }
+        }
+        return dataSource.getHikariPoolMXBean().getTotalConnections();
     }
 
     public static void closeDataSource() {
+        if (reporter != null) {
+            reporter.shutdownNow();
+        }
+        if (replicaDataSource != null && !replicaDataSource.isClosed()) {
+            replicaDataSource.close();
+            logger.info("Read replica connection pool closed");
+        }
         if (dataSource != null && !dataSource.isClosed()) {
             dataSource.close();
             logger.info("Database connection pool closed");
@@ -0,0 +1,135 @@
+package com.globalbooks.catalog.util;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hikari metrics tracker that records connection acquisition and usage times and pairs
+ * them with the pool's own gauges in {@link #snapshot()}.
+ *
+ * Times and timeouts are collected per report interval: {@link #rollInterval()} closes the
+ * current one and starts the next. Checkouts are tracked per physical connection, so a
+ * connection still held past the leak threshold is counted while it is held.
+ */
+final class PoolMetrics implements MetricsTrackerFactory {
+
+    private final long leakThresholdMillis;
+    // Keyed by physical connection, so there are never more entries than the pool has connections
+    private final Map<Connection, Checkout> checkouts = new ConcurrentHashMap<>();
+
+    private volatile Interval interval = new Interval();
+    private volatile String poolName;
+    private volatile PoolStats poolStats;
+
+    private static final class Interval {
+        final long start = System.currentTimeMillis();
+        final LatencyHistogram acquireMicros = new LatencyHistogram();
+        final LatencyHistogram usageMillis = new LatencyHistogram();
+        final LongAdder timeouts = new LongAdder();
+    }
+
+    private static final class Checkout {
+        final Connection borrowed;
+        final long since;
+
+        Checkout(Connection borrowed, long since) {
+            this.borrowed = borrowed;
+            this.since = since;
+        }
+    }
+
+    PoolMetrics(long leakThresholdMillis) {
+        this.leakThresholdMillis = leakThresholdMillis;
+    }
+
+    // A sample racing with rollInterval() may land in the interval just reported and be lost
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        this.poolName = poolName;
+        this.poolStats = poolStats;
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                interval.acquireMicros.record(TimeUnit.NANOSECONDS.toMicros(elapsedAcquiredNanos));
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                interval.usageMillis.record(elapsedBorrowedMillis);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                interval.timeouts.increment();
+            }
+        };
+    }
+
+    /**
+     * Notes a connection just handed out by the pool; it counts as checked out until closed.
+     */
+    Connection checkedOut(Connection borrowed) throws SQLException {
+        if (leakThresholdMillis > 0) {
+            checkouts.put(borrowed.unwrap(Connection.class),
+                    new Checkout(borrowed, System.currentTimeMillis()));
+        }
+        return borrowed;
+    }
+
+    /**
+     * The current interval so far.
+     */
+    PoolMetricsSnapshot snapshot() {
+        return snapshot(interval);
+    }
+
+    /**
+     * Ends the current interval and returns its figures. Only called from the report thread.
+     */
+    PoolMetricsSnapshot rollInterval() {
+        Interval finished = interval;
+        interval = new Interval();
+        return snapshot(finished);
+    }
+
+    private PoolMetricsSnapshot snapshot(Interval current) {
+        PoolStats stats = poolStats;
+        return new PoolMetricsSnapshot(poolName, current.start, System.currentTimeMillis(),
+                stats != null ? stats.getActiveConnections() : 0,
+                stats != null ? stats.getIdleConnections() : 0,
+                stats != null ? stats.getTotalConnections() : 0,
+                stats != null ? stats.getPendingThreads() : 0,
+                stats != null ? stats.getMaxConnections() : 0,
+                current.acquireMicros, current.usageMillis, current.timeouts.sum(),
+                heldPastThreshold(), leakThresholdMillis);
+    }
+
+    // Closing a Hikari proxy only flags it, so isClosed() is a field read, not a round trip
+    private int heldPastThreshold() {
+        if (leakThresholdMillis <= 0) {
+            return 0;
+        }
+        long now = System.currentTimeMillis();
+        int held = 0;
+        for (Map.Entry<Connection, Checkout> entry : checkouts.entrySet()) {
+            Checkout checkout = entry.getValue();
+            try {
+                if (checkout.borrowed.isClosed()) {
+                    checkouts.remove(entry.getKey(), checkout);
+                } else if (now - checkout.since >= leakThresholdMillis) {
+                    held++;
+                }
+            } catch (SQLException e) {
+                checkouts.remove(entry.getKey(), checkout);
+            }
+        }
+        return held;
+    }
+}
@@ -0,0 +1,11 @@
+package com.globalbooks.catalog.util;
+
+/**
+ * Receives the periodic connection pool report. Register one with
+ * {@link DatabaseConnection#addMetricsSink(PoolMetricsSink)} or name a class with a public
+ * no-arg constructor in db.pool.metrics.sink to forward the numbers to a metrics system.
+ */
+public interface PoolMetricsSink {
+
+    void publish(PoolMetricsSnapshot snapshot);
+}
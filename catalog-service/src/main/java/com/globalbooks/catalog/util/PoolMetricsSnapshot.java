@@ -0,0 +1,90 @@
+package com.globalbooks.catalog.util;
+
+/**
+ * View of the connection pool over one report interval. Gauges reflect the moment it was
+ * taken; counts, percentiles and timeouts cover the interval from {@link #getIntervalStart()}
+ * to {@link #getTimestamp()}. Acquisition times are in microseconds, usage times in
+ * milliseconds.
+ */
+public final class PoolMetricsSnapshot {
+
+    private final String poolName;
+    private final long intervalStart;
+    private final long timestamp;
+    private final int activeConnections;
+    private final int idleConnections;
+    private final int totalConnections;
+    private final int pendingThreads;
+    private final int maxConnections;
+    private final long acquisitions;
+    private final long acquireP50Micros;
+    private final long acquireP99Micros;
+    private final long acquireMaxMicros;
+    private final long usages;
+    private final long usageP50Millis;
+    private final long usageP99Millis;
+    private final long usageMaxMillis;
+    private final long timeouts;
+    private final long leakSuspects;
+    private final long leakThresholdMillis;
+
+    PoolMetricsSnapshot(String poolName, long intervalStart, long timestamp, int activeConnections, int idleConnections,
+                        int totalConnections, int pendingThreads, int maxConnections,
+                        LatencyHistogram acquire, LatencyHistogram usage, long timeouts,
+                        long leakSuspects, long leakThresholdMillis) {
+        this.poolName = poolName;
+        this.intervalStart = intervalStart;
+        this.timestamp = timestamp;
+        this.activeConnections = activeConnections;
+        this.idleConnections = idleConnections;
+        this.totalConnections = totalConnections;
+        this.pendingThreads = pendingThreads;
+        this.maxConnections = maxConnections;
+        this.acquisitions = acquire.getCount();
+        this.acquireP50Micros = acquire.getPercentile(50);
+        this.acquireP99Micros = acquire.getPercentile(99);
+        this.acquireMaxMicros = acquire.getMax();
+        this.usages = usage.getCount();
+        this.usageP50Millis = usage.getPercentile(50);
+        this.usageP99Millis = usage.getPercentile(99);
+        this.usageMaxMillis = usage.getMax();
+        this.timeouts = timeouts;
+        this.leakSuspects = leakSuspects;
+        this.leakThresholdMillis = leakThresholdMillis;
+    }
+
+    public String getPoolName() { return poolName; }
+    public long getIntervalStart() { return intervalStart; }
+    public long getTimestamp() { return timestamp; }
+    public int getActiveConnections() { return activeConnections; }
+    public int getIdleConnections() { return idleConnections; }
+    public int getTotalConnections() { return totalConnections; }
+    public int getPendingThreads() { return pendingThreads; }
+    public int getMaxConnections() { return maxConnections; }
+    public long getAcquisitions() { return acquisitions; }
+    public long getAcquireP50Micros() { return acquireP50Micros; }
+    public long getAcquireP99Micros() { return acquireP99Micros; }
+    public long getAcquireMaxMicros() { return acquireMaxMicros; }
+    public long getUsages() { return usages; }
+    public long getUsageP50Millis() { return usageP50Millis; }
+    public long getUsageP99Millis() { return usageP99Millis; }
+    public long getUsageMaxMillis() { return usageMaxMillis; }
+    public long getTimeouts() { return timeouts; }
+
+    /**
+     * Connections checked out when the snapshot was taken and held for at least the
+     * leak-detection threshold so far.
+     */
+    public long getLeakSuspects() { return leakSuspects; }
+    public long getLeakThresholdMillis() { return leakThresholdMillis; }
+
+    @Override
+    public String toString() {
+        return String.format("pool=%s active=%d idle=%d total=%d/%d pending=%d"
+                        + " acquire[n=%d p50=%dus p99=%dus max=%dus]"
+                        + " usage[n=%d p50=%dms p99=%dms max=%dms] timeouts=%d leakSuspects=%d",
+                poolName, activeConnections, idleConnections, totalConnections, maxConnections,
+                pendingThreads, acquisitions, acquireP50Micros, acquireP99Micros, acquireMaxMicros,
+                usages, usageP50Millis, usageP99Millis, usageMaxMillis, timeouts, leakSuspects);
+    }
+}
@@ -0,0 +1,73 @@
+package com.globalbooks.catalog.web;
+
+import com.globalbooks.catalog.config.CatalogConfig;
+import com.globalbooks.catalog.dao.ProductDAOFactory;
+import com.globalbooks.catalog.dao.ProductNotificationListener;
+import com.globalbooks.catalog.search.FacetedSearch;
+import com.globalbooks.catalog.search.KeywordCorrector;
+import com.globalbooks.catalog.search.ProductSuggester;
+import com.globalbooks.catalog.util.DatabaseConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+
+public class CatalogContextListener implements ServletContextListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogContextListener.class);
+
+    static final String WARMUP_ATTRIBUTE = CatalogWarmup.class.getName();
+
+    private Thread warmupThread;
+    private Thread notificationThread;
+    private ProductNotificationListener notificationListener;
+
+    @Override
+    public void contextInitialized(ServletContextEvent event) {
+        CatalogWarmup warmup = new CatalogWarmup();
+        event.getServletContext().setAttribute(WARMUP_ATTRIBUTE, warmup);
+
+        // Warm up off the deployment thread; the readiness probe reports 503 until it is done
+        if (CatalogConfig.getBoolean("catalog.warmup.enabled", true)) {
+            warmupThread = new Thread(warmup, "catalog-warmup");
+            warmupThread.setDaemon(true);
+            warmupThread.start();
+        } else {
+            warmup.markReady();
+        }
+
+        // Other nodes' writes reach this node's cache through the products NOTIFY triggers
+        if (CatalogConfig.getBoolean("catalog.cache.notify.enabled", true)) {
+            notificationListener = new ProductNotificationListener(ProductDAOFactory.getProductCache(),
+                    CatalogConfig.getInt("catalog.cache.notify.poll-ms", 500),
+                    CatalogConfig.getLong("catalog.cache.notify.reconnect-ms", 5000));
+            notificationThread = new Thread(notificationListener, "product-change-listener");
+            notificationThread.setDaemon(true);
+            notificationThread.start();
+        }
+
+        // Start building the search indexes before the first search needs them
+        ProductSuggester.getInstance();
+        FacetedSearch.getInstance();
+        KeywordCorrector.getInstance();
+        logger.info("Catalog service context initialized");
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent event) {
+        if (warmupThread != null) {
+            warmupThread.interrupt();
+        }
+        if (notificationThread != null) {
+            notificationThread.interrupt();
+            notificationListener.close();
+        }
+        ProductSuggester.shutdown();
+        FacetedSearch.shutdown();
+        KeywordCorrector.shutdown();
+        // Flush pending inventory deltas while the pool is still open
+        ProductDAOFactory.shutdown();
+        DatabaseConnection.closeDataSource();
+        logger.info("Catalog service context destroyed");
+    }
+}
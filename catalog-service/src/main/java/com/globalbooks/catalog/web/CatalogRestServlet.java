@@ -0,0 +1,209 @@
+package com.globalbooks.catalog.web;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.util.StdDateFormat;
+import com.globalbooks.catalog.config.SecurityConfig;
+import com.globalbooks.catalog.exception.CatalogException;
+import com.globalbooks.catalog.model.SearchCriteria;
+import com.globalbooks.catalog.security.CredentialStore;
+import com.globalbooks.catalog.security.RequestUser;
+import com.globalbooks.catalog.security.TokenService;
+import com.globalbooks.catalog.service.CatalogServiceImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * JSON read facade over the same CatalogServiceImpl, validation and ProductDAO as the
+ * SOAP endpoint, for internal callers that only need lookups:
+ *
+ *   POST /api/v1/token                     HTTP Basic credentials in, bearer token out
+ *   GET  /api/v1/products?keyword=...      searchProducts (category, author, minPrice,
+ *                                          maxPrice, inStockOnly, fuzzy, maxResults)
+ *   GET  /api/v1/products/{id}             getProductById
+ *   GET  /api/v1/products/{id}/inventory   checkInventory
+ *   GET  /api/v1/products/{id}/price       getProductPrice (quantity, default 1)
+ *   GET  /api/v1/suggestions?prefix=...    autocomplete (maxResults, default 10)
+ *   GET  /api/v1/facets?category=...       getSearchFacets (same filters as products)
+ *
+ * Catalog faults map to HTTP statuses with a JSON {errorCode, message} body.
+ */
+public class CatalogRestServlet extends HttpServlet {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogRestServlet.class);
+    private static final String JSON = "application/json;charset=UTF-8";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .setDateFormat(new StdDateFormat())
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+    private transient CatalogServiceImpl catalogService;
+
+    @Override
+    public void init() {
+        catalogService = new CatalogServiceImpl();
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!"/token".equals(request.getPathInfo())) {
+            writeError(response, HttpServletResponse.SC_NOT_FOUND, "NOT_FOUND", "Unknown resource");
+            return;
+        }
+
+        String[] credentials = basicCredentials(request.getHeader("Authorization"));
+        if (credentials == null
+                || !CredentialStore.current().authenticate(credentials[0], credentials[1], SecurityConfig.PASSWORD_TYPE_TEXT)) {
+            response.setHeader("WWW-Authenticate", "Basic realm=\"" + SecurityConfig.SECURITY_REALM + "\"");
+            writeError(response, HttpServletResponse.SC_UNAUTHORIZED, "AUTHENTICATION_ERROR", "Invalid credentials");
+            return;
+        }
+
+        TokenService tokens = TokenService.getInstance();
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("accessToken", tokens.issue(credentials[0]));
+        body.put("tokenType", "Bearer");
+        body.put("expiresIn", tokens.getTtlMillis() / 1000);
+        logger.info("Issued API token for user {}", credentials[0]);
+        writeJson(response, HttpServletResponse.SC_OK, body);
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String user = bearerUser(request.getHeader("Authorization"));
+        if (user == null) {
+            response.setHeader("WWW-Authenticate", "Bearer realm=\"" + SecurityConfig.SECURITY_REALM + "\"");
+            writeError(response, HttpServletResponse.SC_UNAUTHORIZED, "AUTHENTICATION_ERROR",
+                    "Missing, invalid or expired bearer token");
+            return;
+        }
+
+        String path = request.getPathInfo() != null ? request.getPathInfo() : "";
+        String[] segments = path.split("/");
+        // The service logs and authorizes as this user, as it does for a SOAP caller
+        RequestUser.set(user);
+        try {
+            if (segments.length == 2 && "suggestions".equals(segments[1])) {
+                writeJson(response, HttpServletResponse.SC_OK, catalogService.autocomplete(
+                        request.getParameter("prefix"), intParameter(request, "maxResults", 10)));
+            } else if (segments.length == 2 && "facets".equals(segments[1])) {
+                writeJson(response, HttpServletResponse.SC_OK, catalogService.getSearchFacets(searchCriteria(request)));
+            } else if (segments.length < 2 || !"products".equals(segments[1])) {
+                writeError(response, HttpServletResponse.SC_NOT_FOUND, "NOT_FOUND", "Unknown resource");
+            } else if (segments.length == 2) {
+                writeJson(response, HttpServletResponse.SC_OK, catalogService.searchProducts(searchCriteria(request)));
+            } else if (segments.length == 3) {
+                writeJson(response, HttpServletResponse.SC_OK, catalogService.getProductById(segments[2]));
+            } else if (segments.length == 4 && "inventory".equals(segments[3])) {
+                writeJson(response, HttpServletResponse.SC_OK, catalogService.checkInventory(segments[2]));
+            } else if (segments.length == 4 && "price".equals(segments[3])) {
+                int quantity = intParameter(request, "quantity", 1);
+                writeJson(response, HttpServletResponse.SC_OK, catalogService.getProductPrice(segments[2], quantity));
+            } else {
+                writeError(response, HttpServletResponse.SC_NOT_FOUND, "NOT_FOUND", "Unknown resource");
+            }
+        } catch (CatalogException e) {
+            writeError(response, statusFor(e.getErrorCode()), e.getErrorCode(), e.getErrorMessage());
+        } finally {
+            RequestUser.clear();
+        }
+    }
+
+    private static SearchCriteria searchCriteria(HttpServletRequest request) throws CatalogException {
+        SearchCriteria criteria = new SearchCriteria();
+        criteria.setKeyword(request.getParameter("keyword"));
+        criteria.setCategory(request.getParameter("category"));
+        criteria.setAuthor(request.getParameter("author"));
+        criteria.setMinPrice(decimalParameter(request, "minPrice"));
+        criteria.setMaxPrice(decimalParameter(request, "maxPrice"));
+        criteria.setInStockOnly(Boolean.parseBoolean(request.getParameter("inStockOnly")));
+        criteria.setFuzzy(Boolean.parseBoolean(request.getParameter("fuzzy")));
+        criteria.setMaxResults(intParameter(request, "maxResults", criteria.getMaxResults()));
+        return criteria;
+    }
+
+    private static int intParameter(HttpServletRequest request, String name, int defaultValue)
+            throws CatalogException {
+        String value = request.getParameter(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new CatalogException("INVALID_INPUT", name + " must be an integer");
+        }
+    }
+
+    private static BigDecimal decimalParameter(HttpServletRequest request, String name) throws CatalogException {
+        String value = request.getParameter(name);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            throw new CatalogException("INVALID_INPUT", name + " must be a decimal number");
+        }
+    }
+
+    private static String[] basicCredentials(String authorization) {
+        if (authorization == null || !authorization.regionMatches(true, 0, "Basic ", 0, 6)) {
+            return null;
+        }
+        String decoded;
+        try {
+            decoded = new String(Base64.getDecoder().decode(authorization.substring(6).trim()),
+                    StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        int colon = decoded.indexOf(':');
+        return colon > 0 ? new String[] {decoded.substring(0, colon), decoded.substring(colon + 1)} : null;
+    }
+
+    private static String bearerUser(String authorization) {
+        if (authorization == null || !authorization.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            return null;
+        }
+        return TokenService.getInstance().verify(authorization.substring(7).trim());
+    }
+
+    private static int statusFor(String errorCode) {
+        if (errorCode == null) {
+            return HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+        }
+        switch (errorCode) {
+            case "INVALID_INPUT": return HttpServletResponse.SC_BAD_REQUEST;
+            case "PRODUCT_NOT_FOUND": return HttpServletResponse.SC_NOT_FOUND;
+            case "AUTHORIZATION_ERROR": return HttpServletResponse.SC_FORBIDDEN;
+            case "SERVICE_BUSY": return HttpServletResponse.SC_SERVICE_UNAVAILABLE;
+            default: return HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+        }
+    }
+
+    private static void writeError(HttpServletResponse response, int status, String errorCode, String message)
+            throws IOException {
+        Map<String, String> body = new LinkedHashMap<>();
+        body.put("errorCode", errorCode);
+        body.put("message", message);
+        writeJson(response, status, body);
+    }
+
+    private static void writeJson(HttpServletResponse response, int status, Object body) throws IOException {
+        response.setStatus(status);
+        response.setContentType(JSON);
+        MAPPER.writeValue(response.getOutputStream(), body);
+    }
+}
@@ -0,0 +1,137 @@
+package com.globalbooks.catalog.web;
+
+import com.globalbooks.catalog.config.CatalogConfig;
+import com.globalbooks.catalog.model.*;
+import com.globalbooks.catalog.search.FacetedSearch;
+import com.globalbooks.catalog.service.CatalogServiceImpl;
+import com.globalbooks.catalog.util.DatabaseConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Marshaller;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Takes the one-off startup costs off live traffic: fills the connection pool and drives
+ * read-only calls through CatalogServiceImpl, marshalling the responses, so the classes are
+ * loaded, the product cache is populated and the JIT has profiled the request path.
+ * Readiness is reported once it has finished.
+ *
+ * The marshaller comes from a JAXBContext of our own, not the one the JAX-WS runtime builds
+ * for the endpoint, so this warms the JAXB code paths and the JIT rather than that context.
+ * The synthetic calls log like any other; their lines carry the MDC key {@value #MDC_KEY}
+ * for a log pattern or filter to pick out.
+ */
+public class CatalogWarmup implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogWarmup.class);
+    private static final String MDC_KEY = "catalogWarmup";
+
+    private static final Class<?>[] MODEL_CLASSES = {
+            Product.class, ProductBatchResult.class, ProductPage.class, SearchCriteria.class,
+            PriceQuote.class, CartQuote.class, InventoryStatus.class, BulkInventoryUpdateResult.class,
+            Suggestion.class, SearchFacets.class
+    };
+
+    private final int iterations;
+    private volatile boolean ready;
+
+    public CatalogWarmup() {
+        this.iterations = CatalogConfig.getInt("catalog.warmup.iterations", 200);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void markReady() {
+        ready = true;
+    }
+
+    // A failed warm-up still ends in readiness: the service works, just without the head start
+    @Override
+    public void run() {
+        long start = System.currentTimeMillis();
+        try {
+            int connections = DatabaseConnection.fillPool();
+            logger.info("Connection pool warmed with {} connections", connections);
+
+            JAXBContext jaxbContext = JAXBContext.newInstance(MODEL_CLASSES);
+            exerciseService(jaxbContext.createMarshaller());
+            logger.info("Catalog warm-up finished in {} ms", System.currentTimeMillis() - start);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.info("Catalog warm-up interrupted");
+            return;
+        } catch (Exception e) {
+            logger.warn("Catalog warm-up failed after {} ms, serving cold",
+                    System.currentTimeMillis() - start, e);
+        }
+        markReady();
+    }
+
+    private void exerciseService(Marshaller marshaller) throws Exception {
+        MDC.put(MDC_KEY, "true");
+        try {
+            exerciseService(new CatalogServiceImpl(), marshaller);
+        } finally {
+            MDC.remove(MDC_KEY);
+        }
+    }
+
+    private void exerciseService(CatalogServiceImpl service, Marshaller marshaller) throws Exception {
+        SearchCriteria criteria = new SearchCriteria();
+        criteria.setMaxResults(20);
+        List<String> productIds = new ArrayList<>();
+        List<String> keywords = new ArrayList<>();
+        for (Product product : service.searchProducts(criteria)) {
+            productIds.add(product.getProductId());
+            keywords.add(product.getTitle().split("\\s+")[0]);
+        }
+        if (productIds.isEmpty()) {
+            logger.info("Catalog is empty, skipping synthetic requests");
+            return;
+        }
+
+        SearchCriteria keywordCriteria = new SearchCriteria();
+        keywordCriteria.setMaxResults(20);
+        SearchCriteria fuzzyCriteria = new SearchCriteria();
+        fuzzyCriteria.setMaxResults(20);
+        fuzzyCriteria.setFuzzy(true);
+        List<CartLine> cart = new ArrayList<>();
+        for (String productId : productIds) {
+            cart.add(new CartLine(productId, 12));
+        }
+
+        for (int i = 0; i < iterations; i++) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException();
+            }
+            String productId = productIds.get(i % productIds.size());
+            keywordCriteria.setKeyword(keywords.get(i % keywords.size()));
+            marshal(marshaller, service.getProductById(productId));
+            marshal(marshaller, service.getProductsByIds(productIds));
+            marshal(marshaller, service.searchProductsPage(criteria));
+            marshal(marshaller, service.searchProductsPage(keywordCriteria));
+            // A typo on every keyword, to exercise the correction path
+            fuzzyCriteria.setKeyword(keywordCriteria.getKeyword() + "e");
+            marshal(marshaller, service.searchProductsPage(fuzzyCriteria));
+            marshal(marshaller, service.checkInventory(productId));
+            marshal(marshaller, service.getProductPrice(productId, 1 + i % 120));
+            marshal(marshaller, service.getCartQuote(cart));
+            String keyword = keywords.get(i % keywords.size());
+            service.autocomplete(keyword.substring(0, Math.min(keyword.length(), 1 + i % 4)), 10);
+            if (FacetedSearch.getInstance().isReady()) {
+                marshal(marshaller, service.getSearchFacets(keywordCriteria));
+            }
+        }
+        logger.info("Ran {} synthetic request rounds over {} products", iterations, productIds.size());
+    }
+
+    private static void marshal(Marshaller marshaller, Object response) throws Exception {
+        marshaller.marshal(response, OutputStream.nullOutputStream());
+    }
+}
@@ -0,0 +1,472 @@
+package com.globalbooks.catalog.web;
+
+import com.globalbooks.catalog.config.CatalogConfig;
+import javax.servlet.*;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * HTTP gzip for the SOAP and JSON endpoints. Requests sent with Content-Encoding: gzip
+ * are inflated before the service sees them. Responses are compressed for clients that
+ * send Accept-Encoding: gzip, once they reach catalog.http.gzip.min-bytes; smaller ones
+ * go out as they are. Works the same on top of Fast Infoset and plain XML.
+ *
+ * An inflated request body may not exceed catalog.http.gzip.max-inflated-bytes; reading
+ * past it fails and the request is answered with 413, so a small compressed body cannot
+ * expand without bound.
+ */
+public class GzipFilter implements Filter {
+
+    private static final String GZIP = "gzip";
+
+    private int minBytes;
+    private long maxInflatedBytes;
+
+    @Override
+    public void init(FilterConfig filterConfig) {
+        minBytes = CatalogConfig.getInt("catalog.http.gzip.min-bytes", 1024);
+        maxInflatedBytes = CatalogConfig.getLong("catalog.http.gzip.max-inflated-bytes", 16L * 1024 * 1024);
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        if (!(request instanceof HttpServletRequest)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        HttpServletResponse httpResponse = (HttpServletResponse) response;
+        InflatingRequest inflating = null;
+        if (isGzip(httpRequest.getHeader("Content-Encoding"))) {
+            inflating = new InflatingRequest(httpRequest, maxInflatedBytes);
+            httpRequest = inflating;
+            httpResponse = new GuardedResponse(httpResponse, inflating);
+        }
+
+        CompressingResponse compressing = null;
+        try {
+            if (!acceptsGzip(httpRequest.getHeader("Accept-Encoding"))) {
+                chain.doFilter(httpRequest, httpResponse);
+            } else {
+                httpResponse.addHeader("Vary", "Accept-Encoding");
+                compressing = new CompressingResponse(httpResponse, minBytes);
+                chain.doFilter(httpRequest, compressing);
+            }
+        } catch (IOException | ServletException | RuntimeException e) {
+            // The failed read may come back wrapped, or the service may have answered it with a fault
+            if (inflating == null || !inflating.tooLarge) {
+                throw e;
+            }
+        }
+
+        // Whatever the service made of the failed read, the client gets a plain 413
+        if (inflating != null && inflating.tooLarge) {
+            HttpServletResponse original = (HttpServletResponse) response;
+            if (!original.isCommitted()) {
+                original.reset();
+                original.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE,
+                        "Inflated request body exceeds " + maxInflatedBytes + " bytes");
+            }
+            return;
+        }
+        if (compressing != null) {
+            compressing.finish();
+        }
+    }
+
+    private static boolean isGzip(String contentEncoding) {
+        return contentEncoding != null && GZIP.equalsIgnoreCase(contentEncoding.trim());
+    }
+
+    // gzip listed without q=0
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            if (GZIP.equalsIgnoreCase(parts[0].trim())) {
+                for (int i = 1; i < parts.length; i++) {
+                    if (parts[i].trim().matches("q=0(\\.0*)?")) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class InflatedTooLargeException extends IOException {
+        private InflatedTooLargeException(long limit) {
+            super("Inflated request body exceeds " + limit + " bytes");
+        }
+    }
+
+    private static final class InflatingRequest extends HttpServletRequestWrapper {
+        private final long maxInflatedBytes;
+        private ServletInputStream stream;
+        private long inflatedBytes;
+        private volatile boolean tooLarge;
+
+        private InflatingRequest(HttpServletRequest request, long maxInflatedBytes) {
+            super(request);
+            this.maxInflatedBytes = maxInflatedBytes;
+        }
+
+        private int count(int n) throws InflatedTooLargeException {
+            if (n > 0) {
+                inflatedBytes += n;
+                if (inflatedBytes > maxInflatedBytes) {
+                    tooLarge = true;
+                    throw new InflatedTooLargeException(maxInflatedBytes);
+                }
+            }
+            return n;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (stream == null) {
+                InputStream inflated = new GZIPInputStream(super.getInputStream());
+                stream = new ServletInputStream() {
+                    private boolean finished;
+
+                    @Override
+                    public int read() throws IOException {
+                        int b = inflated.read();
+                        finished = b < 0;
+                        count(finished ? 0 : 1);
+                        return b;
+                    }
+
+                    @Override
+                    public int read(byte[] buffer, int offset, int length) throws IOException {
+                        int n = inflated.read(buffer, offset, length);
+                        finished = n < 0;
+                        return count(n);
+                    }
+
+                    @Override
+                    public boolean isFinished() {
+                        return finished;
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return true;
+                    }
+
+                    @Override
+                    public void setReadListener(ReadListener readListener) {
+                        throw new IllegalStateException("Inflated request body is blocking only");
+                    }
+                };
+            }
+            return stream;
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+        }
+
+        // The body the service reads is no longer the one the headers describe
+        @Override
+        public String getHeader(String name) {
+            return isHidden(name) ? null : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return isHidden(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            List<String> names = Collections.list(super.getHeaderNames());
+            names.removeIf(InflatingRequest::isHidden);
+            return Collections.enumeration(names);
+        }
+
+        @Override
+        public int getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return -1;
+        }
+
+        private static boolean isHidden(String name) {
+            return "Content-Encoding".equalsIgnoreCase(name) || "Content-Length".equalsIgnoreCase(name);
+        }
+    }
+
+    /**
+     * Drops whatever the service writes once the request body has gone over the limit,
+     * typically a fault for the failed read, so the response stays uncommitted for the 413.
+     */
+    private static final class GuardedResponse extends HttpServletResponseWrapper {
+        private final InflatingRequest request;
+        private ServletOutputStream body;
+        private PrintWriter writer;
+
+        private GuardedResponse(HttpServletResponse response, InflatingRequest request) {
+            super(response);
+            this.request = request;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (body == null) {
+                ServletOutputStream out = super.getOutputStream();
+                body = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        if (!request.tooLarge) {
+                            out.write(b);
+                        }
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        if (!request.tooLarge) {
+                            out.write(b, off, len);
+                        }
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        if (!request.tooLarge) {
+                            out.flush();
+                        }
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        if (!request.tooLarge) {
+                            out.close();
+                        }
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return out.isReady();
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener writeListener) {
+                        out.setWriteListener(writeListener);
+                    }
+                };
+            }
+            return body;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(getOutputStream(),
+                        Charset.forName(getCharacterEncoding())));
+            }
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (!request.tooLarge) {
+                super.flushBuffer();
+            }
+        }
+
+        @Override
+        public void sendError(int status, String message) throws IOException {
+            if (!request.tooLarge) {
+                super.sendError(status, message);
+            }
+        }
+
+        @Override
+        public void sendError(int status) throws IOException {
+            if (!request.tooLarge) {
+                super.sendError(status);
+            }
+        }
+    }
+
+    /**
+     * Holds back the first minBytes of the body; a response that fits is sent unchanged
+     * with its length, a larger one switches to gzip.
+     */
+    private static final class CompressingResponse extends HttpServletResponseWrapper {
+        private final int minBytes;
+        private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+        private ServletOutputStream body;
+        private PrintWriter writer;
+        private OutputStream out;
+        private boolean finished;
+
+        private CompressingResponse(HttpServletResponse response, int minBytes) {
+            super(response);
+            this.minBytes = minBytes;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            if (writer != null) {
+                throw new IllegalStateException("getWriter() has already been called");
+            }
+            return body();
+        }
+
+        @Override
+        public PrintWriter getWriter() {
+            if (writer == null) {
+                if (body != null) {
+                    throw new IllegalStateException("getOutputStream() has already been called");
+                }
+                writer = new PrintWriter(new OutputStreamWriter(body(), Charset.forName(getCharacterEncoding())));
+            }
+            return writer;
+        }
+
+        // The length is only known once it is clear whether the body gets compressed
+        @Override
+        public void setContentLength(int length) {
+        }
+
+        @Override
+        public void setContentLengthLong(long length) {
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (!"Content-Length".equalsIgnoreCase(name)) {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (!"Content-Length".equalsIgnoreCase(name)) {
+                super.addHeader(name, value);
+            }
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (out != null) {
+                out.flush();
+                super.flushBuffer();
+            }
+        }
+
+        @Override
+        public void resetBuffer() {
+            super.resetBuffer();
+            pending.reset();
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            pending.reset();
+        }
+
+        private ServletOutputStream body() {
+            if (body == null) {
+                body = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        write(new byte[] {(byte) b}, 0, 1);
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        CompressingResponse.this.write(b, off, len);
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        if (out != null) {
+                            out.flush();
+                        }
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        finish();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return true;
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener writeListener) {
+                        throw new IllegalStateException("Compressed response is blocking only");
+                    }
+                };
+            }
+            return body;
+        }
+
+        private void write(byte[] b, int off, int len) throws IOException {
+            if (out != null) {
+                out.write(b, off, len);
+                return;
+            }
+            pending.write(b, off, len);
+            if (pending.size() >= minBytes) {
+                // A body the service already encoded is passed through untouched
+                if (containsHeader("Content-Encoding")) {
+                    out = super.getOutputStream();
+                } else {
+                    super.setHeader("Content-Encoding", GZIP);
+                    out = new GZIPOutputStream(super.getOutputStream(), 8192, true);
+                }
+                pending.writeTo(out);
+                pending.reset();
+            }
+        }
+
+        private void finish() throws IOException {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            if (writer != null) {
+                writer.flush();
+            }
+            if (out instanceof GZIPOutputStream) {
+                ((GZIPOutputStream) out).finish();
+            } else if (out == null) {
+                super.setContentLengthLong(pending.size());
+                pending.writeTo(super.getOutputStream());
+            }
+        }
+    }
+}
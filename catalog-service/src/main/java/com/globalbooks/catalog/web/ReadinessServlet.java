@@ -0,0 +1,23 @@
+package com.globalbooks.catalog.web;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Readiness probe for load balancers: 503 until the startup warm-up has finished.
+ */
+public class ReadinessServlet extends HttpServlet {
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        CatalogWarmup warmup = (CatalogWarmup) getServletContext().getAttribute(CatalogContextListener.WARMUP_ATTRIBUTE);
+        boolean ready = warmup != null && warmup.isReady();
+
+        response.setStatus(ready ? HttpServletResponse.SC_OK : HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setContentType("text/plain");
+        response.setHeader("Cache-Control", "no-store");
+        response.getWriter().println(ready ? "READY" : "WARMING_UP");
+    }
+}
@@ -0,0 +1,526 @@
+package com.globalbooks.catalog.web;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.globalbooks.catalog.config.CatalogConfig;
+import com.globalbooks.catalog.dao.ProductChangeListener;
+import com.globalbooks.catalog.dao.ProductChangeNotifier;
+import com.globalbooks.catalog.dao.ProductDAOFactory;
+import com.globalbooks.catalog.security.CredentialStore;
+import com.globalbooks.catalog.security.SecurityHeader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import javax.servlet.*;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays the serialized SOAP response of an earlier identical getProductById,
+ * checkInventory or searchProducts request, skipping the JAX-WS pipeline, the DAO
+ * and JAXB marshalling. Requests are keyed by the negotiated response encoding (XML or
+ * Fast Infoset), the operation and a canonical form of the body (prefixes, namespace
+ * declarations and inter-element whitespace ignored).
+ *
+ * This runs as a servlet filter rather than a SOAPHandler because a handler can only
+ * read the body through SAAJ, which would put the DOM conversion back on every request.
+ * The filter checks the UsernameToken itself before serving a hit; anything it does not
+ * handle, including failed authentication, goes through to the service unchanged.
+ * Entries live for a short TTL and are dropped as soon as a product changes.
+ */
+public class ResponseCacheFilter implements Filter, ProductChangeListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResponseCacheFilter.class);
+
+    private static final String SOAP_ENV_NS = "http://schemas.xmlsoap.org/soap/envelope/";
+    private static final String CATALOG_NS = "http://globalbooks.com/services/catalog/v1";
+    private static final Set<String> PRODUCT_OPERATIONS = Set.of("getProductById", "checkInventory");
+    private static final String SEARCH_OPERATION = "searchProducts";
+    private static final String FAST_INFOSET = "application/fastinfoset";
+    private static final String XML_PREFIX = "xml:";
+    private static final String FAST_INFOSET_PREFIX = "fi:";
+
+    // Cacheable requests are a few hundred bytes; anything larger is passed through unread
+    private static final int MAX_REQUEST_BYTES = 16 * 1024;
+
+    private final XMLInputFactory inputFactory = createInputFactory();
+
+    private boolean enabled;
+    private int maxEntryBytes;
+    private ProductChangeNotifier changeNotifier;
+    private Cache<String, CachedResponse> productResponses;
+    private Cache<String, CachedResponse> searchResponses;
+
+    @Override
+    public void init(FilterConfig filterConfig) {
+        enabled = CatalogConfig.getBoolean("catalog.cache.response.enabled", true);
+        if (!enabled) {
+            logger.info("SOAP response cache disabled");
+            return;
+        }
+
+        long ttlMillis = CatalogConfig.getLong("catalog.cache.response.ttl-ms", 2000);
+        long maximumBytes = CatalogConfig.getLong("catalog.cache.response.maximum-bytes", 32L * 1024 * 1024);
+        maxEntryBytes = CatalogConfig.getInt("catalog.cache.response.max-entry-bytes", 512 * 1024);
+
+        // Search responses can involve any product, so they are kept apart and cleared on every change
+        productResponses = newCache(ttlMillis, maximumBytes);
+        searchResponses = newCache(ttlMillis, maximumBytes);
+
+        changeNotifier = ProductDAOFactory.getProductCache().getChangeNotifier();
+        changeNotifier.addListener(this);
+        logger.info("SOAP response cache initialized with TTL {} ms and {} bytes per cache",
+                ttlMillis, maximumBytes);
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        if (!enabled || !isPlainSoapPost(request)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        HttpServletResponse httpResponse = (HttpServletResponse) response;
+
+        InputStream in = httpRequest.getInputStream();
+        byte[] body = in.readNBytes(MAX_REQUEST_BYTES + 1);
+        if (body.length > MAX_REQUEST_BYTES) {
+            chain.doFilter(new ReplayRequest(httpRequest,
+                    new SequenceInputStream(new ByteArrayInputStream(body), in)), response);
+            return;
+        }
+
+        ReplayRequest replay = new ReplayRequest(httpRequest, new ByteArrayInputStream(body));
+        CacheableRequest cacheable = parse(body, encodingPrefix(httpRequest));
+        if (cacheable == null) {
+            chain.doFilter(replay, response);
+            return;
+        }
+
+        Cache<String, CachedResponse> cache = cacheable.productId != null ? productResponses : searchResponses;
+        CachedResponse cached = cache.getIfPresent(cacheable.key);
+        if (cached != null) {
+            httpResponse.setContentType(cached.contentType);
+            httpResponse.setContentLength(cached.body.length);
+            httpResponse.getOutputStream().write(cached.body);
+            return;
+        }
+
+        long generation = changeNotifier.getGeneration();
+        CapturingResponse capture = new CapturingResponse(httpResponse, maxEntryBytes);
+        chain.doFilter(replay, capture);
+
+        // Faults come back as 500, so only successful responses are stored
+        byte[] captured = capture.getCaptured();
+        if (capture.getStatus() == HttpServletResponse.SC_OK && captured != null
+                && capture.getContentType() != null && generation == changeNotifier.getGeneration()) {
+            cache.put(cacheable.key, new CachedResponse(capture.getContentType(), captured));
+            // A change that landed between the check and the put must not leave the entry behind
+            if (generation != changeNotifier.getGeneration()) {
+                cache.invalidate(cacheable.key);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (changeNotifier != null) {
+            changeNotifier.removeListener(this);
+        }
+    }
+
+    @Override
+    public void productChanged(String productId) {
+        for (String operation : PRODUCT_OPERATIONS) {
+            productResponses.invalidate(productKey(XML_PREFIX, operation, productId));
+            productResponses.invalidate(productKey(FAST_INFOSET_PREFIX, operation, productId));
+        }
+        searchResponses.invalidateAll();
+    }
+
+    @Override
+    public void allProductsChanged() {
+        productResponses.invalidateAll();
+        searchResponses.invalidateAll();
+    }
+
+    private static boolean isPlainSoapPost(ServletRequest request) {
+        if (!(request instanceof HttpServletRequest)) {
+            return false;
+        }
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        String contentType = httpRequest.getContentType();
+        return "POST".equals(httpRequest.getMethod())
+                && contentType != null && contentType.startsWith("text/xml")
+                && httpRequest.getHeader("Content-Encoding") == null;
+    }
+
+    // The runtime answers in Fast Infoset when the client accepts it, so the two encodings are cached apart
+    private static String encodingPrefix(HttpServletRequest request) {
+        String accept = request.getHeader("Accept");
+        return accept != null && accept.contains(FAST_INFOSET) ? FAST_INFOSET_PREFIX : XML_PREFIX;
+    }
+
+    /**
+     * Returns the cache key for an authenticated request to a cacheable operation,
+     * or null when the request should simply go through to the service.
+     */
+    private CacheableRequest parse(byte[] body, String prefix) {
+        XMLStreamReader reader = null;
+        try {
+            reader = inputFactory.createXMLStreamReader(new ByteArrayInputStream(body));
+            if (reader.nextTag() != XMLStreamConstants.START_ELEMENT || !isSoap(reader, "Envelope")) {
+                return null;
+            }
+
+            reader.nextTag();
+            String[] token = null;
+            if (isSoap(reader, "Header")) {
+                while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                    if (SecurityHeader.WSSE_NS.equals(reader.getNamespaceURI())
+                            && "Security".equals(reader.getLocalName()) && token == null) {
+                        token = readUsernameToken(reader);
+                    } else {
+                        skipElement(reader);
+                    }
+                }
+                reader.nextTag();
+            }
+
+            if (token == null || token[0] == null || token[1] == null
+                    || !CredentialStore.current().authenticate(token[0], token[1], token[2])) {
+                return null;
+            }
+
+            if (!isSoap(reader, "Body") || reader.nextTag() != XMLStreamConstants.START_ELEMENT
+                    || !CATALOG_NS.equals(reader.getNamespaceURI())) {
+                return null;
+            }
+
+            String operation = reader.getLocalName();
+            boolean productOperation = PRODUCT_OPERATIONS.contains(operation);
+            if (!productOperation && !SEARCH_OPERATION.equals(operation)) {
+                return null;
+            }
+
+            StringBuilder key = new StringBuilder(prefix);
+            String[] productId = new String[1];
+            appendCanonical(reader, key, productId, 0);
+            if (!productOperation) {
+                return new CacheableRequest(key.toString(), null);
+            }
+
+            // Only requests that invalidation can find again are cached
+            if (productId[0] == null || !key.toString().equals(productKey(prefix, operation, productId[0]))) {
+                return null;
+            }
+            return new CacheableRequest(key.toString(), productId[0]);
+        } catch (XMLStreamException e) {
+            logger.debug("Request not cacheable: {}", e.getMessage());
+            return null;
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ignored) {
+                    // nothing to release
+                }
+            }
+        }
+    }
+
+    // Username, password and password type from the first UsernameToken
+    private static String[] readUsernameToken(XMLStreamReader reader) throws XMLStreamException {
+        String[] token = new String[3];
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            if (!SecurityHeader.WSSE_NS.equals(reader.getNamespaceURI())
+                    || !"UsernameToken".equals(reader.getLocalName())) {
+                skipElement(reader);
+                continue;
+            }
+            while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                String name = SecurityHeader.WSSE_NS.equals(reader.getNamespaceURI()) ? reader.getLocalName() : "";
+                if ("Username".equals(name) && token[0] == null) {
+                    token[0] = reader.getElementText();
+                } else if ("Password".equals(name) && token[1] == null) {
+                    token[2] = reader.getAttributeValue(null, "Type");
+                    token[1] = reader.getElementText();
+                } else {
+                    skipElement(reader);
+                }
+            }
+        }
+        return token;
+    }
+
+    /**
+     * Appends name[attr=value](children) for the current element, ignoring namespace
+     * prefixes and whitespace between elements; depth-1 productId text is captured.
+     */
+    private static void appendCanonical(XMLStreamReader reader, StringBuilder key, String[] productId, int depth)
+            throws XMLStreamException {
+        String name = reader.getLocalName();
+        key.append(name);
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            key.append('[').append(reader.getAttributeLocalName(i)).append('=');
+            escape(reader.getAttributeValue(i), key);
+            key.append(']');
+        }
+        key.append('(');
+
+        StringBuilder text = new StringBuilder();
+        boolean hasChildren = false;
+        while (true) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                appendText(text, true, key);
+                hasChildren = true;
+                appendCanonical(reader, key, productId, depth + 1);
+            } else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA
+                    || event == XMLStreamConstants.SPACE) {
+                text.append(reader.getText());
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                if (depth == 1 && !hasChildren && "productId".equals(name) && productId[0] == null) {
+                    productId[0] = text.toString();
+                }
+                appendText(text, hasChildren, key);
+                break;
+            }
+        }
+        key.append(')');
+    }
+
+    private static void appendText(StringBuilder text, boolean dropWhitespace, StringBuilder key) {
+        if (text.length() > 0 && !(dropWhitespace && text.toString().isBlank())) {
+            escape(text.toString(), key);
+        }
+        text.setLength(0);
+    }
+
+    private static String productKey(String prefix, String operation, String productId) {
+        StringBuilder key = new StringBuilder(prefix).append(operation).append("(productId(");
+        escape(productId, key);
+        return key.append("))").toString();
+    }
+
+    private static void escape(String value, StringBuilder key) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '(' || c == ')' || c == '[' || c == ']' || c == '=' || c == '\\') {
+                key.append('\\');
+            }
+            key.append(c);
+        }
+    }
+
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private static boolean isSoap(XMLStreamReader reader, String localName) {
+        return reader.isStartElement() && SOAP_ENV_NS.equals(reader.getNamespaceURI())
+                && localName.equals(reader.getLocalName());
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    private static Cache<String, CachedResponse> newCache(long ttlMillis, long maximumBytes) {
+        return Caffeine.newBuilder()
+                .expireAfterWrite(ttlMillis, TimeUnit.MILLISECONDS)
+                .maximumWeight(maximumBytes)
+                .weigher((String key, CachedResponse value) -> key.length() + value.body.length)
+                .build();
+    }
+
+    private static final class CacheableRequest {
+        private final String key;
+        private final String productId;
+
+        private CacheableRequest(String key, String productId) {
+            this.key = key;
+            this.productId = productId;
+        }
+    }
+
+    private static final class CachedResponse {
+        private final String contentType;
+        private final byte[] body;
+
+        private CachedResponse(String contentType, byte[] body) {
+            this.contentType = contentType;
+            this.body = body;
+        }
+    }
+
+    /**
+     * Hands the already-read request body to the JAX-WS servlet.
+     */
+    private static final class ReplayRequest extends HttpServletRequestWrapper {
+        private final ServletInputStream stream;
+
+        private ReplayRequest(HttpServletRequest request, InputStream body) {
+            super(request);
+            this.stream = new ServletInputStream() {
+                private boolean finished;
+
+                @Override
+                public int read() throws IOException {
+                    int b = body.read();
+                    finished = b < 0;
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) throws IOException {
+                    int n = body.read(buffer, offset, length);
+                    finished = n < 0;
+                    return n;
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return finished;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new IllegalStateException("Replayed request body is blocking only");
+                }
+            };
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            return stream;
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+            return new BufferedReader(new InputStreamReader(stream, charset));
+        }
+    }
+
+    /**
+     * Copies up to maxBytes of what the service writes so it can be replayed later;
+     * larger responses, and responses written through a Writer, are not kept.
+     */
+    private static final class CapturingResponse extends HttpServletResponseWrapper {
+        private final int maxBytes;
+        private ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        private ServletOutputStream stream;
+
+        private CapturingResponse(HttpServletResponse response, int maxBytes) {
+            super(response);
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (stream == null) {
+                ServletOutputStream out = super.getOutputStream();
+                stream = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        out.write(b);
+                        capture(new byte[] {(byte) b}, 0, 1);
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        out.write(b, off, len);
+                        capture(b, off, len);
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        out.flush();
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        out.close();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return out.isReady();
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener writeListener) {
+                        out.setWriteListener(writeListener);
+                    }
+                };
+            }
+            return stream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            captured = null;
+            return super.getWriter();
+        }
+
+        @Override
+        public void resetBuffer() {
+            super.resetBuffer();
+            if (captured != null) {
+                captured.reset();
+            }
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            if (captured != null) {
+                captured.reset();
+            }
+        }
+
+        private void capture(byte[] b, int off, int len) {
+            if (captured != null) {
+                if (captured.size() + len > maxBytes) {
+                    captured = null;
+                } else {
+                    captured.write(b, off, len);
+                }
+            }
+        }
+
+        private byte[] getCaptured() {
+            return captured != null ? captured.toByteArray() : null;
+        }
+    }
+}
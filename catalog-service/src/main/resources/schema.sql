@@ -15,16 +15,26 @@ CREATE TABLE IF NOT EXISTS products (
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     restock_date DATE,
+    search_vector TSVECTOR GENERATED ALWAYS AS (
+        setweight(to_tsvector('english', COALESCE(title, '')), 'A') ||
+        setweight(to_tsvector('english', COALESCE(author, '')), 'B') ||
+        setweight(to_tsvector('english', COALESCE(description, '')), 'C')
+    ) STORED,
     CONSTRAINT check_reserved CHECK (reserved_quantity <= stock_quantity)
 );
 
 -- Create indexes for better performance
 CREATE INDEX idx_products_title ON products(LOWER(title));
+-- "C" (byte order) to match searchPage's ORDER BY and keyset predicate
+CREATE INDEX idx_products_title_id ON products(title COLLATE "C", product_id COLLATE "C");
 CREATE INDEX idx_products_author ON products(LOWER(author));
 CREATE INDEX idx_products_category ON products(LOWER(category));
 CREATE INDEX idx_products_price ON products(price);
 CREATE INDEX idx_products_stock ON products(stock_quantity);
 
+-- Full-text index backing keyword search (title, author, description)
+CREATE INDEX idx_products_search ON products USING GIN(search_vector);
+
 -- Create trigger to update updated_at timestamp
 CREATE OR REPLACE FUNCTION update_updated_at_column()
 RETURNS TRIGGER AS $$
@@ -39,6 +49,78 @@ BEFORE UPDATE ON products
 FOR EACH ROW
 EXECUTE FUNCTION update_updated_at_column();
 
+-- Tell every catalog node which product changed so it can evict its cached copy.
+-- Payload: {"product_id": "...", "change": "INSERT|UPDATE|DELETE"}, or
+-- {"product_id": null, "change": "TRUNCATE"} when the whole table was emptied, or
+-- {"product_id": null, "change": "IMPORT"} after a bulk import.
+-- Notifications are delivered on commit, and identical ones are sent once per transaction.
+--
+-- Cost: a transaction that has queued a NOTIFY takes a database-wide lock while it commits,
+-- so such commits are serialized across every session, not just on this table. The lock is
+-- taken once per transaction however many rows it notifies for, so the inventory ledger's
+-- flush, which writes all pending deltas in one transaction, pays it once per flush rather
+-- than once per reservation. reserved_quantity changes must be sent: ResponseCacheFilter
+-- caches checkInventory responses. Only an UPDATE that changes nothing but updated_at
+-- (a no-op write) is skipped by the WHEN clause below. Bulk writers should notify once per
+-- transaction the way CatalogImporter does.
+CREATE OR REPLACE FUNCTION notify_product_change()
+RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_LEVEL = 'STATEMENT' THEN
+        PERFORM pg_notify('product_changes',
+                json_build_object('product_id', NULL, 'change', TG_OP)::text);
+        RETURN NULL;
+    END IF;
+    -- CatalogImporter sends one notification for the whole import once it is visible
+    IF current_setting('catalog.bulk_import', true) = 'on' THEN
+        RETURN NULL;
+    END IF;
+    PERFORM pg_notify('product_changes',
+            json_build_object('product_id', COALESCE(NEW.product_id, OLD.product_id), 'change', TG_OP)::text);
+    IF TG_OP = 'UPDATE' AND NEW.product_id <> OLD.product_id THEN
+        PERFORM pg_notify('product_changes',
+                json_build_object('product_id', OLD.product_id, 'change', 'DELETE')::text);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER notify_products_changed
+AFTER INSERT OR DELETE ON products
+FOR EACH ROW
+EXECUTE FUNCTION notify_product_change();
+
+CREATE TRIGGER notify_products_updated
+AFTER UPDATE ON products
+FOR EACH ROW
+WHEN (to_jsonb(OLD) - 'updated_at' IS DISTINCT FROM to_jsonb(NEW) - 'updated_at')
+EXECUTE FUNCTION notify_product_change();
+
+CREATE TRIGGER notify_products_truncated
+AFTER TRUNCATE ON products
+FOR EACH STATEMENT
+EXECUTE FUNCTION notify_product_change();
+
+-- Last journal sequence each catalog node's inventory ledger has written to products
+CREATE TABLE IF NOT EXISTS inventory_ledger_checkpoint (
+    node_id VARCHAR(100) PRIMARY KEY,
+    last_sequence BIGINT NOT NULL,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Acknowledged inventory deltas a ledger flush could not apply (row deleted, or a check
+-- constraint refused it), written in the flush transaction; reconcile by hand
+CREATE TABLE IF NOT EXISTS inventory_ledger_rejects (
+    id BIGSERIAL PRIMARY KEY,
+    node_id VARCHAR(100) NOT NULL,
+    product_id VARCHAR(50) NOT NULL,
+    stock_delta INTEGER NOT NULL,
+    reserved_delta INTEGER NOT NULL,
+    last_sequence BIGINT NOT NULL,
+    reason TEXT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
 -- Insert sample data
 INSERT INTO products (product_id, title, author, isbn, description, category, price, stock_quantity, warehouse_location, publish_date) VALUES
 ('BOOK-001', 'Effective Java', 'Joshua Bloch', '978-0134685991', 'The definitive guide to Java best practices', 'Programming', 45.99, 150, 'Warehouse-A', '2018-01-06'),
@@ -54,4 +136,5 @@ INSERT INTO products (product_id, title, author, isbn, description, category, pr
 
 -- Grant permissions to catalog_user (run as superuser)
 -- GRANT ALL PRIVILEGES ON TABLE products TO catalog_user;
+-- GRANT ALL PRIVILEGES ON TABLE inventory_ledger_checkpoint TO catalog_user;
 -- GRANT USAGE, SELECT ON ALL SEQUENCES IN SCHEMA public TO catalog_user;
\ No newline at end of file
@@ -0,0 +1,136 @@
+package com.globalbooks.catalog.inventory;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReservationJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsBackAppendedRecordsInOrder() throws IOException {
+        try (ReservationJournal journal = new ReservationJournal(directory)) {
+            journal.awaitDurable(journal.append(Arrays.asList(
+                    new ReservationJournal.Record(1, "BOOK-001", 0, 5),
+                    new ReservationJournal.Record(2, "BOOK-002", -3, -3))));
+            journal.awaitDurable(journal.append(Arrays.asList(
+                    new ReservationJournal.Record(3, "BOOK-001", 0, -2))));
+
+            List<ReservationJournal.Record> records = journal.readAll();
+
+            assertEquals(3, records.size());
+            assertRecord(records.get(0), 1, "BOOK-001", 0, 5);
+            assertRecord(records.get(1), 2, "BOOK-002", -3, -3);
+            assertRecord(records.get(2), 3, "BOOK-001", 0, -2);
+        }
+    }
+
+    @Test
+    void replaysSegmentsLeftByAnEarlierRun() throws IOException {
+        try (ReservationJournal journal = new ReservationJournal(directory)) {
+            journal.append(Arrays.asList(new ReservationJournal.Record(1, "BOOK-001", 0, 1)));
+            journal.rotate();
+            journal.append(Arrays.asList(new ReservationJournal.Record(2, "BOOK-001", 0, 1)));
+        }
+
+        try (ReservationJournal reopened = new ReservationJournal(directory)) {
+            List<ReservationJournal.Record> records = reopened.readAll();
+            assertEquals(2, records.size());
+            assertEquals(1, records.get(0).sequence);
+            assertEquals(2, records.get(1).sequence);
+        }
+    }
+
+    @Test
+    void skipsLinesFailingTheirChecksum() throws IOException {
+        try (ReservationJournal journal = new ReservationJournal(directory)) {
+            journal.append(Arrays.asList(
+                    new ReservationJournal.Record(1, "BOOK-001", 0, 5),
+                    new ReservationJournal.Record(2, "BOOK-002", 0, 7)));
+        }
+        Path segment = onlySegment();
+        List<String> lines = Files.readAllLines(segment, StandardCharsets.UTF_8);
+        // Same shape, different quantity: only the checksum gives it away
+        lines.set(0, lines.get(0).replace(",0,5,", ",0,9,"));
+        Files.write(segment, lines, StandardCharsets.UTF_8);
+
+        try (ReservationJournal reopened = new ReservationJournal(directory)) {
+            List<ReservationJournal.Record> records = reopened.readAll();
+            assertEquals(1, records.size());
+            assertRecord(records.get(0), 2, "BOOK-002", 0, 7);
+        }
+    }
+
+    @Test
+    void skipsATornFinalLine() throws IOException {
+        try (ReservationJournal journal = new ReservationJournal(directory)) {
+            journal.append(Arrays.asList(new ReservationJournal.Record(1, "BOOK-001", 0, 5)));
+        }
+        Path segment = onlySegment();
+        String line = new String(Files.readAllBytes(segment), StandardCharsets.UTF_8);
+        Files.write(segment, line.substring(0, line.length() / 2).getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        try (ReservationJournal reopened = new ReservationJournal(directory)) {
+            assertEquals(1, reopened.readAll().size());
+        }
+    }
+
+    @Test
+    void cancellationKeepsTheSequenceAndClearsTheDeltas() throws IOException {
+        ReservationJournal.Record record = new ReservationJournal.Record(4, "BOOK-003", -1, 2);
+        ReservationJournal.Record cancellation = ReservationJournal.Record.cancelling(record);
+
+        assertFalse(record.isCancellation());
+        assertTrue(cancellation.isCancellation());
+        assertRecord(cancellation, 4, "BOOK-003", 0, 0);
+
+        try (ReservationJournal journal = new ReservationJournal(directory)) {
+            journal.append(Arrays.asList(record, cancellation));
+            assertTrue(journal.readAll().get(1).isCancellation());
+        }
+    }
+
+    @Test
+    void deletesRotatedSegments() throws IOException {
+        try (ReservationJournal journal = new ReservationJournal(directory)) {
+            journal.append(Arrays.asList(new ReservationJournal.Record(1, "BOOK-001", 0, 1)));
+            List<Path> closed = journal.rotate();
+            assertEquals(1, closed.size());
+
+            journal.delete(closed);
+
+            assertFalse(Files.exists(closed.get(0)));
+            assertTrue(journal.readAll().isEmpty());
+        }
+    }
+
+    private Path onlySegment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> segments = files.filter(path -> path.getFileName().toString().endsWith(".log"))
+                    .collect(Collectors.toList());
+            assertEquals(1, segments.size());
+            return segments.get(0);
+        }
+    }
+
+    private static void assertRecord(ReservationJournal.Record record, long sequence, String productId,
+                                     int stockDelta, int reservedDelta) {
+        assertEquals(sequence, record.sequence);
+        assertEquals(productId, record.productId);
+        assertEquals(stockDelta, record.stockDelta);
+        assertEquals(reservedDelta, record.reservedDelta);
+    }
+}
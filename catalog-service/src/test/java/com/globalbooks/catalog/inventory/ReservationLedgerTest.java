@@ -0,0 +1,128 @@
+package com.globalbooks.catalog.inventory;
+
+import com.globalbooks.catalog.model.InventoryUpdate;
+import org.junit.jupiter.api.Test;
+import java.sql.BatchUpdateException;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReservationLedgerTest {
+
+    @Test
+    void reserveNeedsUnreservedStock() {
+        int[] counters = {10, 6};
+
+        assertFalse(ReservationLedger.applyTo(counters, new InventoryUpdate("BOOK-001", 5, "RESERVE")));
+        assertArrayEquals(new int[] {10, 6}, counters);
+
+        assertTrue(ReservationLedger.applyTo(counters, new InventoryUpdate("BOOK-001", 4, "RESERVE")));
+        assertArrayEquals(new int[] {10, 10}, counters);
+    }
+
+    @Test
+    void releaseNeverGoesBelowZero() {
+        int[] counters = {10, 3};
+
+        assertTrue(ReservationLedger.applyTo(counters, new InventoryUpdate("BOOK-001", 5, "RELEASE")));
+        assertArrayEquals(new int[] {10, 0}, counters);
+    }
+
+    @Test
+    void deductTakesStockAndItsReservation() {
+        int[] counters = {10, 4};
+
+        assertTrue(ReservationLedger.applyTo(counters, new InventoryUpdate("BOOK-001", 3, "DEDUCT")));
+        assertArrayEquals(new int[] {7, 1}, counters);
+
+        assertFalse(ReservationLedger.applyTo(counters, new InventoryUpdate("BOOK-001", 8, "DEDUCT")));
+        assertArrayEquals(new int[] {7, 1}, counters);
+    }
+
+    @Test
+    void unknownOperationIsRefusedUntouched() {
+        int[] counters = {10, 4};
+
+        assertFalse(ReservationLedger.applyTo(counters, new InventoryUpdate("BOOK-001", 1, "RESTOCK")));
+        assertArrayEquals(new int[] {10, 4}, counters);
+    }
+
+    @Test
+    void replaySumsRecordsAfterTheCheckpoint() {
+        List<ReservationJournal.Record> records = Arrays.asList(
+                new ReservationJournal.Record(1, "BOOK-001", 0, 5),
+                new ReservationJournal.Record(2, "BOOK-001", 0, 2),
+                new ReservationJournal.Record(3, "BOOK-001", -1, -1),
+                new ReservationJournal.Record(4, "BOOK-002", 0, 3));
+
+        Map<String, int[]> deltas = ReservationLedger.unflushedDeltas(records, 1);
+
+        assertEquals(2, deltas.size());
+        assertArrayEquals(new int[] {-1, 1}, deltas.get("BOOK-001"));
+        assertArrayEquals(new int[] {0, 3}, deltas.get("BOOK-002"));
+    }
+
+    @Test
+    void replaySkipsRecordsCancelledAfterAFailedFsync() {
+        ReservationJournal.Record failed = new ReservationJournal.Record(2, "BOOK-001", 0, 5);
+        List<ReservationJournal.Record> records = Arrays.asList(
+                new ReservationJournal.Record(1, "BOOK-001", 0, 1),
+                failed,
+                new ReservationJournal.Record(3, "BOOK-001", 0, 1),
+                ReservationJournal.Record.cancelling(failed));
+
+        Map<String, int[]> deltas = ReservationLedger.unflushedDeltas(records, 0);
+
+        assertArrayEquals(new int[] {0, 2}, deltas.get("BOOK-001"));
+    }
+
+    @Test
+    void cancellationWhoseRecordNeverReachedDiskMatchesNothing() {
+        ReservationJournal.Record lost = new ReservationJournal.Record(2, "BOOK-001", 0, 5);
+        List<ReservationJournal.Record> records = Arrays.asList(
+                new ReservationJournal.Record(1, "BOOK-001", 0, 1),
+                ReservationJournal.Record.cancelling(lost));
+
+        Map<String, int[]> deltas = ReservationLedger.unflushedDeltas(records, 0);
+
+        assertArrayEquals(new int[] {0, 1}, deltas.get("BOOK-001"));
+    }
+
+    @Test
+    void nothingToReplayOnceCheckpointed() {
+        List<ReservationJournal.Record> records = Collections.singletonList(
+                new ReservationJournal.Record(7, "BOOK-001", 0, 1));
+
+        assertTrue(ReservationLedger.unflushedDeltas(records, 7).isEmpty());
+    }
+
+    @Test
+    void constraintViolationsAreToldApartFromOtherFailures() {
+        assertTrue(ReservationLedger.isConstraintViolation(
+                new SQLException("violates check constraint \"check_reserved\"", "23514")));
+        assertFalse(ReservationLedger.isConstraintViolation(
+                new SQLException("connection reset", "08006")));
+        assertFalse(ReservationLedger.isConstraintViolation(new SQLException("no state")));
+    }
+
+    @Test
+    void batchFailureIsReadFromTheChainedException() {
+        BatchUpdateException batch = new BatchUpdateException("Batch entry 0 was aborted", new int[0]);
+        batch.setNextException(new SQLException("violates check constraint \"check_stock\"", "23514"));
+
+        assertTrue(ReservationLedger.isConstraintViolation(batch));
+    }
+
+    @Test
+    void rejectReasonKeepsTheStateAndFirstLine() {
+        SQLException e = new SQLException("ERROR: new row violates check constraint \"check_reserved\"\n"
+                + "  Detail: Failing row contains (BOOK-001, ...)", "23514");
+
+        assertEquals("23514 ERROR: new row violates check constraint \"check_reserved\"",
+                ReservationLedger.rejectReason(e));
+    }
+}
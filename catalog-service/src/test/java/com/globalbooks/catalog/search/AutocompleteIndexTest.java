@@ -0,0 +1,141 @@
+package com.globalbooks.catalog.search;
+
+import com.globalbooks.catalog.search.AutocompleteIndex.Entry;
+import com.globalbooks.catalog.search.AutocompleteIndex.Field;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AutocompleteIndexTest {
+
+    @Test
+    void findsTitlesFromAnyWordStart() {
+        AutocompleteIndex index = new AutocompleteIndex(5);
+        index.update("BOOK-004", product("BOOK-004", "The Pragmatic Programmer", "David Thomas", 120));
+
+        assertEquals(Arrays.asList("The Pragmatic Programmer"), texts(index.lookup("prag", 10)));
+        assertEquals(Arrays.asList("The Pragmatic Programmer"), texts(index.lookup("the p", 10)));
+        assertEquals(Arrays.asList("David Thomas"), texts(index.lookup("thom", 10)));
+        assertTrue(index.lookup("ragmatic", 10).isEmpty());
+    }
+
+    @Test
+    void matchesIsbnDigitsAndIgnoresAccents() {
+        AutocompleteIndex index = new AutocompleteIndex(5);
+        index.update("BOOK-011", new Entry[] {
+                new Entry("BOOK-011", "Les Misérables", Field.TITLE, 3),
+                new Entry("BOOK-011", "978-0-14-044430-8", Field.ISBN, 3)});
+
+        assertEquals(Arrays.asList("Les Misérables"), texts(index.lookup("mise", 10)));
+        assertEquals(Arrays.asList("978-0-14-044430-8"), texts(index.lookup("978 014", 10)));
+        assertEquals(Arrays.asList("978-0-14-044430-8"), texts(index.lookup("978-0-14", 10)));
+    }
+
+    @Test
+    void ranksByScoreThenText() {
+        AutocompleteIndex index = new AutocompleteIndex(5);
+        index.update("A", product("A", "Java Concurrency", "Brian Goetz", 10));
+        index.update("B", product("B", "Java Puzzlers", "Joshua Bloch", 50));
+        index.update("C", product("C", "Java Generics", "Maurice Naftalin", 10));
+
+        assertEquals(Arrays.asList("Java Puzzlers", "Java Concurrency", "Java Generics"),
+                texts(index.lookup("java", 10)));
+        assertEquals(Arrays.asList("Java Puzzlers"), texts(index.lookup("java", 1)));
+    }
+
+    @Test
+    void updateReranksAndReplacesOldText() {
+        AutocompleteIndex index = new AutocompleteIndex(5);
+        index.update("A", product("A", "Java Concurrency", "Brian Goetz", 10));
+        index.update("B", product("B", "Java Puzzlers", "Joshua Bloch", 50));
+
+        index.update("A", product("A", "Java Concurrency in Practice", "Brian Goetz", 80));
+
+        assertEquals(Arrays.asList("Java Concurrency in Practice", "Java Puzzlers"),
+                texts(index.lookup("java", 10)));
+        assertEquals(Arrays.asList("Java Concurrency in Practice"), texts(index.lookup("practice", 10)));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void emptyUpdateRemovesTheProductOnly() {
+        AutocompleteIndex index = new AutocompleteIndex(5);
+        index.update("A", product("A", "Clean Code", "Robert Martin", 10));
+        index.update("B", product("B", "Clean Architecture", "Robert Martin", 5));
+
+        index.update("A", new Entry[0]);
+
+        assertEquals(Arrays.asList("Clean Architecture"), texts(index.lookup("clean", 10)));
+        assertEquals(Arrays.asList("Robert Martin"), texts(index.lookup("rob", 10)));
+        assertEquals("B", index.lookup("rob", 10).get(0).getProductId());
+        assertEquals(1, index.size());
+
+        index.update("B", new Entry[0]);
+        assertTrue(index.lookup("c", 10).isEmpty());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void removalRefillsTopKFromTheRestOfTheSubtree() {
+        AutocompleteIndex index = new AutocompleteIndex(2);
+        index.update("A", product("A", "Data One", "X", 30));
+        index.update("B", product("B", "Data Two", "X", 20));
+        index.update("C", product("C", "Data Three", "X", 10));
+        assertEquals(Arrays.asList("Data One", "Data Two"), texts(index.lookup("data", 10)));
+
+        index.update("A", new Entry[0]);
+
+        assertEquals(Arrays.asList("Data Two", "Data Three"), texts(index.lookup("data", 10)));
+    }
+
+    @Test
+    void incrementalUpdatesMatchAFullRebuild() {
+        Random random = new Random(42);
+        String[] words = {"java", "jazz", "javelin", "data", "database", "dart", "design", "desk"};
+        AutocompleteIndex incremental = new AutocompleteIndex(4);
+        Map<String, Entry[]> catalog = new LinkedHashMap<>();
+
+        for (int step = 0; step < 2000; step++) {
+            String productId = "P" + random.nextInt(40);
+            if (random.nextInt(5) == 0) {
+                incremental.update(productId, new Entry[0]);
+                catalog.remove(productId);
+            } else {
+                String title = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)];
+                Entry[] entries = product(productId, title, words[random.nextInt(words.length)], random.nextInt(5));
+                incremental.update(productId, entries);
+                catalog.put(productId, entries);
+            }
+        }
+
+        AutocompleteIndex rebuilt = new AutocompleteIndex(4);
+        rebuilt.rebuild(new ArrayList<>(catalog.values()));
+        assertEquals(rebuilt.size(), incremental.size());
+        for (String prefix : new String[] {"j", "ja", "jav", "java", "java j", "d", "da", "dat", "de", "des", "x"}) {
+            assertEquals(describe(rebuilt.lookup(prefix, 4)), describe(incremental.lookup(prefix, 4)), prefix);
+        }
+    }
+
+    private static Entry[] product(String productId, String title, String author, int stock) {
+        return new Entry[] {
+                new Entry(productId, title, Field.TITLE, stock),
+                new Entry(productId, author, Field.AUTHOR, stock)};
+    }
+
+    private static List<String> texts(List<Entry> entries) {
+        return entries.stream().map(Entry::getText).collect(Collectors.toList());
+    }
+
+    private static List<String> describe(List<Entry> entries) {
+        return entries.stream()
+                .map(entry -> entry.getProductId() + ":" + entry.getField() + ":" + entry.getText() + ":" + entry.getScore())
+                .collect(Collectors.toList());
+    }
+}
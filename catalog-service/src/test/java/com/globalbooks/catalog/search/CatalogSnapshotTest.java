@@ -0,0 +1,199 @@
+package com.globalbooks.catalog.search;
+
+import com.globalbooks.catalog.model.Product;
+import com.globalbooks.catalog.model.SearchCriteria;
+import org.junit.jupiter.api.Test;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogSnapshotTest {
+
+    // Bands: under 20.00, 20.00-49.99, 50.00 and up
+    private static final long[] BANDS = {2000, 5000};
+
+    private static CatalogSnapshot sample() {
+        return CatalogSnapshot.of(Arrays.asList(
+                product("BOOK-003", "Design Patterns", "Programming", "54.99", 75),
+                product("BOOK-001", "Effective Java", "Programming", "45.99", 150),
+                product("BOOK-006", "The Mythical Man-Month", "Software Engineering", "19.99", 0),
+                product("BOOK-002", "Clean Code", "Programming", "39.99", 200),
+                product("BOOK-007", "Domain-Driven Design", "Architecture", "65.99", 90),
+                product("BOOK-010", "Clean Code", "Programming", "20.00", 5)), BANDS);
+    }
+
+    @Test
+    void rowsAreInTitleThenProductIdOrder() {
+        CatalogSnapshot snapshot = sample();
+
+        assertEquals(Arrays.asList("BOOK-002", "BOOK-010", "BOOK-003", "BOOK-007", "BOOK-001", "BOOK-006"),
+                productIds(snapshot, snapshot.page(snapshot.filter(new SearchCriteria(), null, true, true),
+                        null, null, 100)));
+    }
+
+    @Test
+    void ordersTitlesByCodePointLikeTheDatabasePath() {
+        // Upper case before lower case, accents after ASCII, U+FFFD before an emoji: the
+        // "C" collation order searchPage uses, not a locale's or String.compareTo's
+        CatalogSnapshot snapshot = CatalogSnapshot.of(Arrays.asList(
+                product("BOOK-101", "apple", "Cooking", "10.00", 1),
+                product("BOOK-102", "\u00c9mile", "Fiction", "10.00", 1),
+                product("BOOK-103", "Zebra", "Nature", "10.00", 1),
+                product("BOOK-104", "\ud83d\ude00 Smile", "Humour", "10.00", 1),
+                product("BOOK-105", "Apple", "Cooking", "10.00", 1),
+                product("BOOK-106", "\ufffd", "Fiction", "10.00", 1),
+                product("BOOK-107", "\u00e9clair", "Cooking", "10.00", 1),
+                product("BOOK-108", "Eagle", "Nature", "10.00", 1)), BANDS);
+        long[] rows = snapshot.filter(new SearchCriteria(), null, true, true);
+        List<String> expected = Arrays.asList(
+                "BOOK-105", "BOOK-108", "BOOK-103", "BOOK-101", "BOOK-102", "BOOK-107", "BOOK-106", "BOOK-104");
+
+        assertEquals(expected, productIds(snapshot, snapshot.page(rows, null, null, 100)));
+
+        // A continuation token from the database path resumes at the next row, never skipping
+        // or repeating one
+        String[] titles = {"Apple", "Eagle", "Zebra", "apple", "\u00c9mile", "\u00e9clair", "\ufffd", "\ud83d\ude00 Smile"};
+        for (int i = 0; i < titles.length; i++) {
+            assertEquals(expected.subList(i + 1, expected.size()),
+                    productIds(snapshot, snapshot.page(rows, titles[i], expected.get(i), 100)));
+        }
+    }
+
+    @Test
+    void filtersByCategoryIgnoringCase() {
+        CatalogSnapshot snapshot = sample();
+        SearchCriteria criteria = new SearchCriteria();
+        criteria.setCategory("programming");
+
+        assertEquals(4, CatalogSnapshot.count(snapshot.filter(criteria, null, true, true)));
+        // Left out for disjunctive facet counts
+        assertEquals(6, CatalogSnapshot.count(snapshot.filter(criteria, null, false, true)));
+
+        criteria.setCategory("Cooking");
+        assertEquals(0, CatalogSnapshot.count(snapshot.filter(criteria, null, true, true)));
+    }
+
+    @Test
+    void filtersByStockAndTextMatches() {
+        CatalogSnapshot snapshot = sample();
+        SearchCriteria criteria = new SearchCriteria();
+        criteria.setInStockOnly(true);
+
+        long[] rows = snapshot.filter(criteria, snapshot.rowsOf(Arrays.asList("BOOK-006", "BOOK-001", "BOOK-404")),
+                true, true);
+
+        assertEquals(Arrays.asList("BOOK-001"), productIds(snapshot, snapshot.page(rows, null, null, 10)));
+    }
+
+    @Test
+    void priceRangeIsInclusiveAcrossBandEdges() {
+        CatalogSnapshot snapshot = sample();
+        SearchCriteria criteria = new SearchCriteria();
+        criteria.setMinPrice(new BigDecimal("20.00"));
+        criteria.setMaxPrice(new BigDecimal("54.99"));
+
+        long[] rows = snapshot.filter(criteria, null, true, true);
+
+        assertEquals(Arrays.asList("BOOK-002", "BOOK-010", "BOOK-003", "BOOK-001"),
+                productIds(snapshot, snapshot.page(rows, null, null, 10)));
+        // Without the price filter every band is counted
+        assertArrayEquals(new int[] {1, 3, 2}, snapshot.countByBand(snapshot.filter(criteria, null, true, false)));
+    }
+
+    @Test
+    void pagesResumeAfterTheCursorAndStopAtTheEnd() {
+        CatalogSnapshot snapshot = sample();
+        long[] rows = snapshot.filter(new SearchCriteria(), null, true, true);
+
+        int[] first = snapshot.page(rows, null, null, 2);
+        assertEquals(Arrays.asList("BOOK-002", "BOOK-010"), productIds(snapshot, first));
+
+        int last = first[first.length - 1];
+        int[] second = snapshot.page(rows, snapshot.getTitle(last), snapshot.getProductId(last), 1000);
+        assertEquals(Arrays.asList("BOOK-003", "BOOK-007", "BOOK-001", "BOOK-006"), productIds(snapshot, second));
+
+        assertEquals(0, snapshot.page(rows, "The Mythical Man-Month", "BOOK-006", 10).length);
+        assertEquals(0, snapshot.page(rows, "Zzz", "", Integer.MAX_VALUE).length);
+    }
+
+    @Test
+    void pagingCrossesBitmapWords() {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            products.add(product(String.format("P%03d", i), String.format("Title %03d", i), "Fiction", "10.00",
+                    i % 3 == 0 ? 1 : 0));
+        }
+        CatalogSnapshot snapshot = CatalogSnapshot.of(products, BANDS);
+        SearchCriteria criteria = new SearchCriteria();
+        criteria.setInStockOnly(true);
+        long[] rows = snapshot.filter(criteria, null, true, true);
+
+        assertEquals(67, CatalogSnapshot.count(rows));
+        int[] page = snapshot.page(rows, "Title 060", "P060", 5);
+        assertEquals(Arrays.asList("P063", "P066", "P069", "P072", "P075"), productIds(snapshot, page));
+    }
+
+    @Test
+    void applyPatchesStockPriceAndCategoryInPlace() {
+        CatalogSnapshot snapshot = sample();
+
+        assertTrue(snapshot.apply(product("BOOK-006", "The Mythical Man-Month", "Architecture", "70.00", 3)));
+
+        SearchCriteria criteria = new SearchCriteria();
+        criteria.setCategory("Architecture");
+        criteria.setInStockOnly(true);
+        criteria.setMinPrice(new BigDecimal("66.00"));
+        assertEquals(Arrays.asList("BOOK-006"),
+                productIds(snapshot, snapshot.page(snapshot.filter(criteria, null, true, true), null, null, 10)));
+
+        SearchCriteria all = new SearchCriteria();
+        assertArrayEquals(new int[] {0, 3, 3}, snapshot.countByBand(snapshot.filter(all, null, true, true)));
+        int[] byCategory = snapshot.countByCategory(snapshot.filter(all, null, true, true));
+        assertEquals(2, byCategory[ordinalOf(snapshot, "Architecture", byCategory.length)]);
+        assertEquals(0, byCategory[ordinalOf(snapshot, "Software Engineering", byCategory.length)]);
+    }
+
+    @Test
+    void applyRefusesChangesThatWouldMoveARow() {
+        CatalogSnapshot snapshot = sample();
+
+        assertFalse(snapshot.apply(product("BOOK-001", "Effective Java 4th Edition", "Programming", "45.99", 1)));
+        assertFalse(snapshot.apply(product("BOOK-404", "Unknown", "Programming", "1.00", 1)));
+        assertFalse(snapshot.apply(product("BOOK-001", "Effective Java", "Cooking", "45.99", 1)));
+
+        // Nothing was patched by the refused changes
+        SearchCriteria criteria = new SearchCriteria();
+        criteria.setCategory("Programming");
+        assertEquals(4, CatalogSnapshot.count(snapshot.filter(criteria, null, true, true)));
+    }
+
+    private static int ordinalOf(CatalogSnapshot snapshot, String category, int categories) {
+        for (int ordinal = 0; ordinal < categories; ordinal++) {
+            if (snapshot.getCategoryName(ordinal).equals(category)) {
+                return ordinal;
+            }
+        }
+        throw new AssertionError("No category " + category);
+    }
+
+    private static List<String> productIds(CatalogSnapshot snapshot, int[] rows) {
+        List<String> ids = new ArrayList<>();
+        for (int row : rows) {
+            ids.add(snapshot.getProductId(row));
+        }
+        return ids;
+    }
+
+    private static Product product(String productId, String title, String category, String price, int stock) {
+        Product product = new Product();
+        product.setProductId(productId);
+        product.setTitle(title);
+        product.setCategory(category);
+        product.setPrice(new BigDecimal(price));
+        product.setStockQuantity(stock);
+        return product;
+    }
+}
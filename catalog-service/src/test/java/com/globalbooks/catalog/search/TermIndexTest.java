@@ -0,0 +1,82 @@
+package com.globalbooks.catalog.search;
+
+import org.junit.jupiter.api.Test;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TermIndexTest {
+
+    private static TermIndex vocabulary(String... words) {
+        TermIndex index = new TermIndex();
+        for (String word : words) {
+            index.add(word);
+        }
+        return index;
+    }
+
+    @Test
+    void splitsTextLikeTheKeywordSearch() {
+        assertEquals(Arrays.asList("domain", "driven", "design", "2nd", "ed"),
+                TermIndex.words("Domain-Driven  Design (2nd ed.)"));
+        assertTrue(TermIndex.words(null).isEmpty());
+    }
+
+    @Test
+    void findsSubstitutionsInsertionsAndDeletions() {
+        TermIndex index = vocabulary("pragmatic", "programmer", "patterns", "kubernetes");
+
+        assertEquals(Collections.singletonList("pragmatic"), index.closest("pragmatik", 1, 5));
+        assertEquals(Collections.singletonList("programmer"), index.closest("programer", 1, 5));
+        assertEquals(Collections.singletonList("patterns"), index.closest("patternss", 1, 5));
+        assertEquals(Collections.singletonList("kubernetes"), index.closest("kubernets", 2, 5));
+    }
+
+    @Test
+    void countsAnAdjacentSwapAsOneEdit() {
+        // Every trigram of a four-letter word is broken by a swap in its middle
+        TermIndex index = vocabulary("java", "code");
+
+        assertEquals(Collections.singletonList("java"), index.closest("jvaa", 1, 5));
+        assertEquals(Collections.singletonList("code"), index.closest("cdoe", 1, 5));
+    }
+
+    @Test
+    void leavesOutWordsBeyondTheBudgetAndTheWordItself() {
+        TermIndex index = vocabulary("design", "designer", "desk");
+
+        assertEquals(Collections.singletonList("design"), index.closest("desgn", 1, 5));
+        assertFalse(index.closest("design", 2, 5).contains("design"));
+        assertTrue(index.closest("xylophone", 2, 5).isEmpty());
+    }
+
+    @Test
+    void ranksByDistanceThenUsageThenWord() {
+        TermIndex index = vocabulary("cast", "cost", "cost", "coast", "pattern", "patterns", "lanterns");
+
+        // "cost" is used twice, "cast" once; both are one substitution from "cist"
+        assertEquals(Arrays.asList("cost", "cast"), index.closest("cist", 1, 5));
+        assertEquals(Collections.singletonList("cost"), index.closest("cist", 1, 1));
+        assertEquals(Arrays.asList("patterns", "pattern"), index.closest("pattarns", 2, 5));
+    }
+
+    @Test
+    void ignoresWordsTooShortOrTooLongToIndex() {
+        TermIndex index = vocabulary("go", "ok", "java");
+
+        assertEquals(1, index.size());
+        assertFalse(index.contains("go"));
+        assertTrue(index.contains("java"));
+    }
+
+    @Test
+    void distanceGivesUpOnceOverBudget() {
+        int[][] rows = new int[3][16];
+
+        assertEquals(0, TermIndex.distance("design", "design", 2, rows));
+        assertEquals(1, TermIndex.distance("design", "desing", 2, rows));
+        assertEquals(2, TermIndex.distance("design", "dezigm", 2, rows));
+        assertEquals(3, TermIndex.distance("design", "kitten", 2, rows));
+    }
+}
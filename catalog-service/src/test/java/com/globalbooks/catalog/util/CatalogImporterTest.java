@@ -0,0 +1,150 @@
+package com.globalbooks.catalog.util;
+
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogImporterTest {
+
+    private static final String HEADER = "product_id,title,author,isbn,category,price\n";
+
+    // Indexes into the importer's column order
+    private static final int PRODUCT_ID = 0;
+    private static final int TITLE = 1;
+    private static final int AUTHOR = 2;
+    private static final int ISBN = 3;
+    private static final int DESCRIPTION = 4;
+    private static final int CATEGORY = 5;
+    private static final int PRICE = 6;
+    private static final int CURRENCY = 7;
+    private static final int STOCK_QUANTITY = 8;
+    private static final int PUBLISH_DATE = 9;
+
+    @Test
+    void readsQuotedFieldsWithCommasQuotesAndLineBreaks() throws IOException {
+        List<CatalogImporter.FeedRecord> records = read(HEADER
+                + "BOOK-1,\"Code, Complete\",\"Steve \"\"Code\"\" McConnell\",978-0735619678,Programming,49.99\n"
+                + "BOOK-2,\"Two\nLines\",Someone,978-0000000002,Programming,1.00\n");
+
+        assertEquals(2, records.size());
+        assertNull(records.get(0).error);
+        assertEquals("Code, Complete", records.get(0).values[TITLE]);
+        assertEquals("Steve \"Code\" McConnell", records.get(0).values[AUTHOR]);
+        assertEquals("Two\nLines", records.get(1).values[TITLE]);
+    }
+
+    @Test
+    void acceptsCrlfAndSkipsBlankLines() throws IOException {
+        List<CatalogImporter.FeedRecord> records = read(HEADER.replace("\n", "\r\n")
+                + "BOOK-1,A,B,C,D,1.00\r\n\r\n"
+                + "BOOK-2,A,B,C,D,2.00\r\n");
+
+        assertEquals(2, records.size());
+        assertEquals("1.00", records.get(0).values[PRICE]);
+        assertEquals("BOOK-2", records.get(1).values[PRODUCT_ID]);
+    }
+
+    @Test
+    void mapsColumnsByHeaderNameAndIgnoresUnknownOnes() throws IOException {
+        List<CatalogImporter.FeedRecord> records = read(
+                "Price,ISBN,Title,Author,Category,Product_ID,Shelf\n"
+                + "9.99,978-1,A Title,An Author,Fiction,BOOK-9,B7\n");
+
+        CatalogImporter.FeedRecord record = records.get(0);
+        assertEquals("BOOK-9", record.values[PRODUCT_ID]);
+        assertEquals("A Title", record.values[TITLE]);
+        assertEquals("9.99", record.values[PRICE]);
+        // Empty and absent columns both read as null
+        assertNull(record.values[DESCRIPTION]);
+    }
+
+    @Test
+    void flagsRecordsWithTheWrongFieldCount() throws IOException {
+        List<CatalogImporter.FeedRecord> records = read(HEADER + "BOOK-1,A,B,C,D\nBOOK-2,A,B,C,D,1.00\n");
+
+        assertEquals("Expected 6 fields, found 5", records.get(0).error);
+        assertEquals("BOOK-1", records.get(0).values[PRODUCT_ID]);
+        assertNull(records.get(1).error);
+    }
+
+    @Test
+    void rejectsFeedsItCannotRead() {
+        assertThrows(IOException.class, () -> read(""));
+        IOException missing = assertThrows(IOException.class, () -> read("product_id,title\nBOOK-1,A\n"));
+        assertEquals("Feed has no author column", missing.getMessage());
+        assertThrows(IOException.class, () -> read(HEADER + "BOOK-1,\"Unterminated,B,C,D,1.00\n"));
+    }
+
+    @Test
+    void readsFieldsSpanningTheReadBuffer() throws IOException {
+        String description = String.join("", Collections.nCopies(70000, "x"));
+        List<CatalogImporter.FeedRecord> records = read(
+                "product_id,title,author,isbn,category,price,description\r\n"
+                + "BOOK-1,A,B,C,D,1.00,\"" + description + "\"\r\n"
+                + "BOOK-2,A,B,C,D,2.00,short\r\n");
+
+        assertEquals(2, records.size());
+        assertEquals(description, records.get(0).values[DESCRIPTION]);
+        assertEquals("short", records.get(1).values[DESCRIPTION]);
+    }
+
+    @Test
+    void validationNormalizesNumbersAndDates() {
+        String[] values = valid();
+        values[PRICE] = " 12.5 ";
+        values[STOCK_QUANTITY] = "007";
+        values[PUBLISH_DATE] = "2018-01-06T00:00:00.000+00:00";
+        String[] normalized = new String[values.length];
+
+        assertNull(CatalogImporter.validate(values, normalized));
+        assertEquals("12.5", normalized[PRICE]);
+        assertEquals("7", normalized[STOCK_QUANTITY]);
+        assertEquals("2018-01-06", normalized[PUBLISH_DATE]);
+    }
+
+    @Test
+    void validationExplainsEachRejection() {
+        assertEquals("Missing title", reason(TITLE, null));
+        assertEquals("product_id is longer than 50 characters",
+                reason(PRODUCT_ID, String.join("", Collections.nCopies(51, "p"))));
+        assertEquals("title contains a NUL character", reason(TITLE, "A\u0000B"));
+        assertEquals("price is not a number", reason(PRICE, "free"));
+        assertEquals("price out of range", reason(PRICE, "-1"));
+        assertEquals("price has more than two decimals", reason(PRICE, "1.005"));
+        assertEquals("stock_quantity is negative", reason(STOCK_QUANTITY, "-3"));
+        assertEquals("stock_quantity is not a whole number", reason(STOCK_QUANTITY, "2.5"));
+        assertEquals("publish_date is not a yyyy-MM-dd date", reason(PUBLISH_DATE, "06/01/2018"));
+        assertEquals("currency is not a three-letter code", reason(CURRENCY, "US"));
+    }
+
+    private static String reason(int column, String value) {
+        String[] values = valid();
+        values[column] = value;
+        return CatalogImporter.validate(values, new String[values.length]);
+    }
+
+    private static String[] valid() {
+        String[] values = new String[11];
+        values[PRODUCT_ID] = "BOOK-1";
+        values[TITLE] = "A Title";
+        values[AUTHOR] = "An Author";
+        values[ISBN] = "978-1";
+        values[CATEGORY] = "Fiction";
+        values[PRICE] = "9.99";
+        return values;
+    }
+
+    private static List<CatalogImporter.FeedRecord> read(String csv) throws IOException {
+        CatalogImporter.CsvRecords source = new CatalogImporter.CsvRecords(new StringReader(csv));
+        List<CatalogImporter.FeedRecord> records = new ArrayList<>();
+        for (CatalogImporter.FeedRecord record = source.next(); record != null; record = source.next()) {
+            records.add(record);
+        }
+        return records;
+    }
+}